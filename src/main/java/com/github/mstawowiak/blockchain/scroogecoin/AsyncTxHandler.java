@@ -0,0 +1,261 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous front end of {@link TxHandler}.
+ *
+ * <p>A transaction is copied when submitted, so it is validated and applied as it was then. Checks
+ * which need no lock run on a pool of worker threads: the stateless rules of {@link TxAdmission}
+ * and the signatures of inputs, verified against the keys of the outputs they spend as found in
+ * the ledger's latest {@link LedgerSnapshot}. Transactions which pass are queued for a single
+ * writer thread, which owns the ledger and applies them in micro-batches, checking that their
+ * inputs are still unspent and cover their outputs. Transaction hashes are set by their callers,
+ * so a UTXO may name another output by then; the writer trusts the signatures verified on a worker
+ * only if every output spent still pays to the key it was verified against, and verifies them
+ * again otherwise. Signatures of inputs spending outputs the snapshot does not hold yet, e.g.
+ * created by a pending transaction, are left to the writer as well.
+ *
+ * <p>If applying a batch fails, the ledger reverts it and its transactions are applied one by
+ * one, so only the futures of the transactions which fail themselves complete exceptionally.
+ *
+ * <p>Transactions may reach the writer in a different order than they were submitted, so a
+ * transaction spending an output of another pending transaction should be submitted once the
+ * future of its parent has completed.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class AsyncTxHandler implements AutoCloseable {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static final long WRITER_POLL_MILLIS = 50;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final TxHandler txHandler;
+    private final ExecutorService workers;
+    private final BlockingQueue<PendingTx> commitQueue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final int maxBatchSize;
+
+    private volatile boolean running = true;
+
+    public AsyncTxHandler(UTXOPool utxoPool) {
+        this(utxoPool, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public AsyncTxHandler(UTXOPool utxoPool, int workerThreads, int maxBatchSize) {
+        if (workerThreads < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Worker threads and max batch size must be positive");
+        }
+        this.txHandler = new TxHandler(utxoPool);
+        this.txHandler.enableSnapshots();
+        this.maxBatchSize = maxBatchSize;
+        this.workers = Executors.newFixedThreadPool(workerThreads, daemonThreadFactory("tx-validator-"));
+        this.writer = daemonThreadFactory("tx-writer-").newThread(this::writeLoop);
+        this.writer.start();
+    }
+
+    /**
+     * Submits {@code tx} for validation.
+     *
+     * @return future completed with true if {@code tx} was accepted and applied to the ledger, or
+     *         false if it was rejected
+     */
+    public CompletableFuture<Boolean> submit(Transaction tx) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        PendingTx pending = new PendingTx(tx.copy(), result);
+        try {
+            workers.execute(() -> admit(pending));
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(new IllegalStateException("Handler is closed", ex));
+        }
+        return result;
+    }
+
+    /**
+     * Stops accepting new transactions, finishes the ones already submitted and releases the
+     * threads.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            running = false;
+            writer.join();
+        } catch (InterruptedException ex) {
+            running = false;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Runs on a worker; whatever happens, {@code pending} is either queued or completed */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private void admit(PendingTx pending) {
+        try {
+            Transaction tx = pending.tx;
+            SignatureCheck signatures = TxAdmission.admit(tx) ? checkSignatures(pending) : SignatureCheck.INVALID;
+            if (signatures == SignatureCheck.INVALID) {
+                pending.result.complete(false);
+                return;
+            }
+            pending.signaturesVerified = signatures == SignatureCheck.VALID;
+            commitQueue.add(pending);
+        } catch (Throwable ex) {
+            pending.result.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Checks rule (2) of {@link TxHandler#isValidTx(Transaction)} against the latest snapshot,
+     * remembering the keys the signatures were verified against. A missing signature is invalid.
+     */
+    private SignatureCheck checkSignatures(PendingTx pending) {
+        Transaction tx = pending.tx;
+        LedgerSnapshot snapshot = txHandler.getSnapshot();
+        PublicKey[] verifiedKeys = new PublicKey[tx.numInputs()];
+        SignatureCheck check = SignatureCheck.VALID;
+        for (int index = 0; index < tx.numInputs(); index++) {
+            Transaction.Input input = tx.getInput(index);
+            if (input.signature == null) {
+                return SignatureCheck.INVALID;
+            }
+            Transaction.Output output = snapshot.getTxOutput(UTXO.of(input.prevTxHash, input.outputIndex));
+            if (output == null) {
+                check = SignatureCheck.UNRESOLVED;
+            } else if (Crypto.verifySignature(output.address, tx.getRawDataToSign(index), input.signature)) {
+                verifiedKeys[index] = output.address;
+            } else {
+                return SignatureCheck.INVALID;
+            }
+        }
+        pending.verifiedKeys = verifiedKeys;
+        return check;
+    }
+
+    /** @return true if every output {@code pending} spends still pays to the key verified for it */
+    private boolean spendsVerifiedKeys(PendingTx pending) {
+        UTXOPool pool = txHandler.getUTXOPool();
+        for (int index = 0; index < pending.tx.numInputs(); index++) {
+            Transaction.Input input = pending.tx.getInput(index);
+            Transaction.Output output = pool.getTxOutput(UTXO.of(input.prevTxHash, input.outputIndex));
+            if (output == null || !pending.verifiedKeys[index].equals(output.address)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeLoop() {
+        List<PendingTx> batch = new ArrayList<>(maxBatchSize);
+        while (running || !commitQueue.isEmpty()) {
+            try {
+                PendingTx first = commitQueue.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                commitQueue.drainTo(batch, maxBatchSize - 1);
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void commit(List<PendingTx> batch) {
+        List<Transaction> txs = new ArrayList<>(batch.size());
+        BitSet signaturesVerified = new BitSet(batch.size());
+        for (PendingTx pending : batch) {
+            signaturesVerified.set(txs.size(), pending.signaturesVerified && spendsVerifiedKeys(pending));
+            txs.add(pending.tx);
+        }
+
+        BitSet admitted = admittedTxs(batch.size());
+        Set<Transaction> accepted = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            accepted.addAll(txHandler.handleTxs(txs, admitted, signaturesVerified));
+        } catch (RuntimeException ex) {
+            commitOneByOne(batch, signaturesVerified);
+            return;
+        }
+        for (PendingTx pending : batch) {
+            pending.result.complete(accepted.contains(pending.tx));
+        }
+    }
+
+    /** Applies the transactions of a failed batch, which the ledger reverted, one epoch each */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void commitOneByOne(List<PendingTx> batch, BitSet signaturesVerified) {
+        for (int index = 0; index < batch.size(); index++) {
+            PendingTx pending = batch.get(index);
+            BitSet verified = new BitSet(1);
+            verified.set(0, signaturesVerified.get(index) && spendsVerifiedKeys(pending));
+            try {
+                List<Transaction> accepted = txHandler.handleTxs(Collections.singletonList(pending.tx), admittedTxs(1),
+                        verified);
+                pending.result.complete(!accepted.isEmpty());
+            } catch (RuntimeException ex) {
+                pending.result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /** @return bits marking the first {@code count} transactions of an epoch as admitted */
+    private static BitSet admittedTxs(int count) {
+        BitSet admitted = new BitSet(count);
+        admitted.set(0, count);
+        return admitted;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Outcome of verifying the signatures of a transaction on a worker */
+    private enum SignatureCheck {
+        VALID,
+        INVALID,
+        /** some input spends an output missing from the snapshot */
+        UNRESOLVED
+    }
+
+    private static final class PendingTx {
+        /** copy of the submitted transaction, owned by the handler */
+        private final Transaction tx;
+        private final CompletableFuture<Boolean> result;
+        /** true if all signatures were verified on a worker; published through the commit queue */
+        private boolean signaturesVerified;
+        /** keys the signatures were verified against on a worker, by input */
+        private PublicKey[] verifiedKeys;
+
+        private PendingTx(Transaction tx, CompletableFuture<Boolean> result) {
+            this.tx = tx;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.SignatureSchemes;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.SignatureVerifier;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Instrumentation;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Probe;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Epoch wide check of rule (2) of {@link TxHandler#isValidTx(Transaction)}: the signatures of all
+ * inputs of an epoch are grouped by the public key of the output they spend, and each group is
+ * verified with one {@link SignatureVerifier}, so a hot address has its key initialized once per
+ * chunk of {@value #CHUNK_SIZE} signatures instead of once per input.
+ *
+ * <p>An input's output is looked up in the pool, or else among the outputs created by the epoch,
+ * as the output a UTXO names does not depend on when it is spent. Chunks run in parallel once an
+ * epoch has {@value #PARALLEL_THRESHOLD} signatures. The remaining inputs of a transaction are
+ * skipped once one of its signatures fails; with chunks running in parallel the skip is best
+ * effort and only saves work. Signatures run before the pool rules, so both sides of a conflict
+ * inside the epoch are verified even though at most one is accepted.
+ *
+ * <p>With the JDK's RSA and ECDSA, initializing a key is cheap next to a verification, so on a
+ * single core this stage performs like verifying input by input; the gain comes from spreading an
+ * epoch's signatures, hot keys included, over all cores.
+ */
+public final class BatchSignatureVerifier {
+
+    /** Most signatures verified by one verifier, so a single hot key still spreads over threads */
+    private static final int CHUNK_SIZE = 256;
+    /** Fewest signatures worth verifying in parallel */
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private BatchSignatureVerifier() {
+    }
+
+    /** @return transactions of {@code txs} whose input signatures are all valid */
+    public static BitSet verify(List<Transaction> txs, UTXOPool utxoPool) {
+        BitSet candidates = new BitSet(txs.size());
+        candidates.set(0, txs.size());
+        return verify(txs, candidates, utxoPool);
+    }
+
+    /**
+     * @return transactions among {@code candidates}, positions in {@code txs}, whose input
+     *         signatures are all valid
+     */
+    public static BitSet verify(List<Transaction> txs, BitSet candidates, UTXOPool utxoPool) {
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        AtomicIntegerArray failed = new AtomicIntegerArray(txs.size());
+        Map<PublicKey, Group> groups = group(txs, candidates, utxoPool, failed);
+
+        List<Chunk> chunks = new ArrayList<>();
+        int signatures = 0;
+        for (Group group : groups.values()) {
+            for (int from = 0; from < group.size; from += CHUNK_SIZE) {
+                chunks.add(new Chunk(group, from, Math.min(group.size, from + CHUNK_SIZE)));
+            }
+            signatures += group.size;
+        }
+        if (signatures >= PARALLEL_THRESHOLD) {
+            chunks.parallelStream().forEach(chunk -> chunk.verify(txs, failed));
+        } else {
+            chunks.forEach(chunk -> chunk.verify(txs, failed));
+        }
+
+        BitSet valid = new BitSet(txs.size());
+        for (int tx = candidates.nextSetBit(0); tx >= 0 && tx < txs.size(); tx = candidates.nextSetBit(tx + 1)) {
+            valid.set(tx, failed.get(tx) == 0);
+        }
+        Instrumentation.recordRule("allInputsSignaturesAreValid.batch", start,
+                valid.cardinality() == candidates.cardinality());
+        return valid;
+    }
+
+    /**
+     * @return inputs of the candidates grouped by the key of the output they spend;
+     *         transactions with an input which can not be verified at all are marked as failed,
+     *         inputs of unknown outputs are left to rule (1)
+     */
+    private static Map<PublicKey, Group> group(List<Transaction> txs, BitSet candidates, UTXOPool utxoPool,
+                                               AtomicIntegerArray failed) {
+        Map<PublicKey, Group> groups = new HashMap<>();
+        Map<UTXO, Transaction.Output> epochOutputs = null;
+        for (int tx = candidates.nextSetBit(0); tx >= 0 && tx < txs.size(); tx = candidates.nextSetBit(tx + 1)) {
+            List<Transaction.Input> inputs = txs.get(tx).getInputs();
+            for (int index = 0; index < inputs.size(); index++) {
+                Transaction.Input input = inputs.get(index);
+                UTXO utxo = UTXO.of(input.prevTxHash, input.outputIndex);
+                Transaction.Output output = utxoPool.getTxOutput(utxo);
+                if (output == null) {
+                    if (epochOutputs == null) {
+                        epochOutputs = outputsOf(txs, candidates);
+                    }
+                    output = epochOutputs.get(utxo);
+                }
+                if (output == null) {
+                    // rejected by rule (1) when the epoch is applied
+                    continue;
+                }
+                if (output.address == null || input.signature == null
+                        || !SignatureSchemes.isSupported(output.address)) {
+                    failed.set(tx, 1);
+                    break;
+                }
+                groups.computeIfAbsent(output.address, Group::new).add(tx, index);
+            }
+        }
+        return groups;
+    }
+
+    private static Map<UTXO, Transaction.Output> outputsOf(List<Transaction> txs, BitSet candidates) {
+        Map<UTXO, Transaction.Output> outputs = new HashMap<>();
+        for (int tx = candidates.nextSetBit(0); tx >= 0 && tx < txs.size(); tx = candidates.nextSetBit(tx + 1)) {
+            Transaction transaction = txs.get(tx);
+            if (transaction.getHash() == null) {
+                continue;
+            }
+            for (int index = 0; index < transaction.numOutputs(); index++) {
+                outputs.putIfAbsent(UTXO.of(transaction.getHash(), index), transaction.getOutput(index));
+            }
+        }
+        return outputs;
+    }
+
+    /** Inputs, as transaction and input positions, spending outputs of one key */
+    private static final class Group {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private final PublicKey key;
+        private int[] txs = new int[INITIAL_CAPACITY];
+        private int[] inputs = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private Group(PublicKey key) {
+            this.key = key;
+        }
+
+        private void add(int tx, int input) {
+            if (size == txs.length) {
+                txs = Arrays.copyOf(txs, size * 2);
+                inputs = Arrays.copyOf(inputs, size * 2);
+            }
+            txs[size] = tx;
+            inputs[size] = input;
+            size++;
+        }
+    }
+
+    private static final class Chunk {
+        private final Group group;
+        private final int from;
+        private final int to;
+
+        private Chunk(Group group, int from, int to) {
+            this.group = group;
+            this.from = from;
+            this.to = to;
+        }
+
+        private void verify(List<Transaction> txs, AtomicIntegerArray failed) {
+            SignatureVerifier verifier = SignatureSchemes.forKey(group.key).newVerifier(group.key);
+            for (int i = from; i < to; i++) {
+                int tx = group.txs[i];
+                if (failed.get(tx) != 0) {
+                    continue;
+                }
+                Transaction transaction = txs.get(tx);
+                int input = group.inputs[i];
+                long start = Instrumentation.start(Probe.SIGNATURE);
+                boolean valid = verifier.verify(transaction.getRawDataToSign(input),
+                        transaction.getInput(input).signature);
+                Instrumentation.recordSignature(start, valid);
+                if (!valid) {
+                    failed.set(tx, 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * UTXOs claimed by more than one transaction of an epoch, with the competing transactions
+ */
+public final class ConflictReport {
+
+    private static final ConflictReport EMPTY = new ConflictReport(Collections.emptyMap());
+
+    private final Map<UTXO, List<Transaction>> conflicts;
+
+    ConflictReport(Map<UTXO, List<Transaction>> conflicts) {
+        Map<UTXO, List<Transaction>> copy = new LinkedHashMap<>();
+        for (Map.Entry<UTXO, List<Transaction>> entry : conflicts.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        this.conflicts = Collections.unmodifiableMap(copy);
+    }
+
+    public static ConflictReport empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return conflicting UTXOs, in the order their first conflict was found, each with its
+     * spenders in epoch order
+     */
+    public Map<UTXO, List<Transaction>> getConflicts() {
+        return conflicts;
+    }
+
+    /** @return transactions spending the same UTXO as another transaction of the epoch */
+    public Set<Transaction> getConflictingTransactions() {
+        Set<Transaction> txs = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Transaction> spenders : conflicts.values()) {
+            txs.addAll(spenders);
+        }
+        return txs;
+    }
+
+    public boolean isEmpty() {
+        return conflicts.isEmpty();
+    }
+
+    /** @return number of conflicting UTXOs */
+    public int size() {
+        return conflicts.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+/**
+ * Online model of epoch validation time as {@code T(n) = fixed + perTx * n}, fitted by exponentially
+ * weighted least squares over the observed epochs, so it follows changes of the workload.
+ */
+final class EpochCostModel {
+
+    /** Weight kept by past observations on each new one */
+    private static final double DECAY = 0.95;
+    /** Below this weighted variance of epoch sizes the fixed cost cannot be told from the per transaction cost */
+    private static final double MIN_SIZE_VARIANCE = 1e-6;
+
+    private double weight;
+    private double sumSize;
+    private double sumNanos;
+    private double sumSizeSquared;
+    private double sumSizeNanos;
+
+    private double fixedNanos;
+    private double perTxNanos;
+
+    EpochCostModel(double initialPerTxNanos) {
+        this.perTxNanos = initialPerTxNanos;
+    }
+
+    /** Adds an epoch of {@code size} transactions which took {@code nanos} to validate */
+    void observe(int size, long nanos) {
+        weight = weight * DECAY + 1;
+        sumSize = sumSize * DECAY + size;
+        sumNanos = sumNanos * DECAY + nanos;
+        sumSizeSquared = sumSizeSquared * DECAY + (double) size * size;
+        sumSizeNanos = sumSizeNanos * DECAY + (double) size * nanos;
+
+        double meanSize = sumSize / weight;
+        double meanNanos = sumNanos / weight;
+        double sizeVariance = sumSizeSquared / weight - meanSize * meanSize;
+        if (sizeVariance > MIN_SIZE_VARIANCE) {
+            double slope = (sumSizeNanos / weight - meanSize * meanNanos) / sizeVariance;
+            double intercept = meanNanos - slope * meanSize;
+            if (slope > 0 && intercept >= 0) {
+                perTxNanos = slope;
+                fixedNanos = intercept;
+                return;
+            }
+        }
+        // epochs of equal sizes, or a fit without physical meaning: attribute all cost to transactions
+        fixedNanos = 0;
+        perTxNanos = meanSize > 0 ? meanNanos / meanSize : perTxNanos;
+    }
+
+    double getFixedNanos() {
+        return fixedNanos;
+    }
+
+    double getPerTxNanos() {
+        return perTxNanos;
+    }
+
+    /** @return predicted validation time of an epoch of {@code size} transactions */
+    double predictNanos(int size) {
+        return fixedNanos + perTxNanos * size;
+    }
+
+    /**
+     * @return the smallest batch size whose throughput reaches {@code throughputGoal} transactions
+     *         per second, capped by the largest one validated within {@code latencyTargetNanos} and
+     *         kept in {@code [minSize, maxSize]}
+     */
+    int batchSize(long latencyTargetNanos, double throughputGoal, int minSize, int maxSize) {
+        double nanosPerSecond = 1e9;
+        double txPerNano = throughputGoal / nanosPerSecond;
+
+        // n / (fixed + perTx * n) >= goal  <=>  n >= goal * fixed / (1 - goal * perTx)
+        double saturation = 1 - txPerNano * perTxNanos;
+        double forThroughput = saturation > 0 ? Math.ceil(txPerNano * fixedNanos / saturation) : maxSize;
+        double forLatency = perTxNanos > 0 ? Math.floor((latencyTargetNanos - fixedNanos) / perTxNanos) : maxSize;
+
+        double size = Math.min(Math.max(forThroughput, minSize), forLatency);
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+}
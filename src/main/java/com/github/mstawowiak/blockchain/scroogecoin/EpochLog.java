@@ -0,0 +1,85 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash chain of the {@link EpochRecord}s of a ledger. Appended by the ledger, readable from any
+ * thread.
+ *
+ * <p>Only the latest epochs keep what inclusion proofs need; older records are pruned to their
+ * header, so the log grows by a few dozen bytes per epoch however many transactions it accepted.
+ */
+public final class EpochLog {
+
+    /** Number of latest epochs whose records keep inclusion proofs by default */
+    public static final int DEFAULT_PROVABLE_EPOCHS = 1024;
+
+    private final List<EpochRecord> records = new ArrayList<>();
+    private final int provableEpochs;
+
+    EpochLog() {
+        this(DEFAULT_PROVABLE_EPOCHS);
+    }
+
+    /** @param provableEpochs number of latest epochs whose records keep inclusion proofs */
+    EpochLog(int provableEpochs) {
+        if (provableEpochs < 0) {
+            throw new IllegalArgumentException("Provable epochs must not be negative, was " + provableEpochs);
+        }
+        this.provableEpochs = provableEpochs;
+    }
+
+    /** Appends the record of an epoch which accepted {@code accepted}, changing the pool by {@code delta} */
+    synchronized EpochRecord append(List<Transaction> accepted, UTXODelta delta) {
+        byte[] previousHash = records.isEmpty()
+                ? EpochRecord.GENESIS_HASH
+                : records.get(records.size() - 1).getHash();
+        EpochRecord record = new EpochRecord(records.size(), previousHash, accepted, delta);
+        records.add(record);
+        int expired = records.size() - 1 - provableEpochs;
+        if (expired >= 0) {
+            records.set(expired, records.get(expired).pruned());
+        }
+        return record;
+    }
+
+    /** Drops the latest record, if any */
+    synchronized void removeLast() {
+        if (!records.isEmpty()) {
+            records.remove(records.size() - 1);
+        }
+    }
+
+    /** @return record of epoch {@code number} */
+    public synchronized EpochRecord get(int number) {
+        return records.get(number);
+    }
+
+    /** @return record of the latest epoch, or null if no epoch was handled */
+    public synchronized EpochRecord getLatest() {
+        return records.isEmpty() ? null : records.get(records.size() - 1);
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /** @return a snapshot of all records, oldest first */
+    public synchronized List<EpochRecord> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    /** @return true if every record is intact and links to the hash of its predecessor */
+    public synchronized boolean verifyChain() {
+        byte[] previousHash = EpochRecord.GENESIS_HASH;
+        for (EpochRecord record : records) {
+            if (!Arrays.equals(previousHash, record.getPreviousHash()) || !record.isIntact()) {
+                return false;
+            }
+            previousHash = record.getHash();
+        }
+        return true;
+    }
+}
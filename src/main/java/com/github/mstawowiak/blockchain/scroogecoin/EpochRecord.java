@@ -0,0 +1,156 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.InclusionProof;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.MerkleTree;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Block-like record of an epoch: the hash of the previous record, the Merkle root of the hashes of
+ * the accepted transactions and the size of the change made to the UTXO pool. Its hash covers all
+ * of them, chaining the records of a {@link EpochLog}.
+ *
+ * <p>A pruned record keeps only that header; the transaction hashes and their Merkle tree, needed
+ * for inclusion proofs, are dropped.
+ */
+public final class EpochRecord {
+
+    /** Previous hash of the first record */
+    static final byte[] GENESIS_HASH = new byte[32];
+
+    private static final byte[] NO_HASH = new byte[0];
+
+    private final int number;
+    private final byte[] previousHash;
+    private final byte[] transactionsRoot;
+    private final int acceptedCount;
+    /** null once pruned */
+    private final List<byte[]> txHashes;
+    /** null once pruned */
+    private final MerkleTree txTree;
+    private final int addedCount;
+    private final int removedCount;
+    private final byte[] hash;
+
+    EpochRecord(int number, byte[] previousHash, List<Transaction> accepted, UTXODelta delta) {
+        this.number = number;
+        this.previousHash = previousHash.clone();
+        List<byte[]> hashes = new ArrayList<>(accepted.size());
+        for (Transaction tx : accepted) {
+            // a transaction without outputs is accepted even if its hash was never calculated
+            hashes.add(tx.getHash() == null ? NO_HASH : tx.getHash().clone());
+        }
+        this.txHashes = Collections.unmodifiableList(hashes);
+        this.txTree = MerkleTree.of(hashes);
+        this.transactionsRoot = txTree.getRoot();
+        this.acceptedCount = hashes.size();
+        this.addedCount = delta.getAdded().size();
+        this.removedCount = delta.getRemoved().size();
+        this.hash = calculateHash();
+    }
+
+    private EpochRecord(EpochRecord record) {
+        this.number = record.number;
+        this.previousHash = record.previousHash;
+        this.transactionsRoot = record.transactionsRoot;
+        this.acceptedCount = record.acceptedCount;
+        this.txHashes = null;
+        this.txTree = null;
+        this.addedCount = record.addedCount;
+        this.removedCount = record.removedCount;
+        this.hash = record.hash;
+    }
+
+    /** @return this record without its transaction hashes and Merkle tree */
+    EpochRecord pruned() {
+        return isPruned() ? this : new EpochRecord(this);
+    }
+
+    /** @return true if inclusion proofs are no longer available from this record */
+    public boolean isPruned() {
+        return txTree == null;
+    }
+
+    /** @return position of the epoch in its log, starting at 0 */
+    public int getNumber() {
+        return number;
+    }
+
+    public byte[] getPreviousHash() {
+        return previousHash.clone();
+    }
+
+    /** @return Merkle root of the hashes of the accepted transactions, in the order they were applied */
+    public byte[] getTransactionsRoot() {
+        return transactionsRoot.clone();
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /** @return number of UTXOs the epoch added to the pool */
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    /** @return number of UTXOs the epoch removed from the pool */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    public byte[] getHash() {
+        return hash.clone();
+    }
+
+    /**
+     * @return proof that the accepted transaction at {@code index} is covered by the transactions root
+     * @throws IllegalStateException if the record is pruned
+     */
+    public InclusionProof prove(int index) {
+        if (isPruned()) {
+            throw new IllegalStateException("Record of epoch " + number + " is pruned");
+        }
+        return txTree.prove(index, txHashes.get(index));
+    }
+
+    /**
+     * @return proof that the transaction with {@code txHash} was accepted, or null if it was not or
+     *         the record is pruned
+     */
+    public InclusionProof prove(byte[] txHash) {
+        if (isPruned()) {
+            return null;
+        }
+        for (int i = 0; i < txHashes.size(); i++) {
+            if (Arrays.equals(txHashes.get(i), txHash)) {
+                return prove(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the hash of this record matches its content; for a pruned record the content
+     *         is its header
+     */
+    public boolean isIntact() {
+        return Arrays.equals(hash, calculateHash());
+    }
+
+    private byte[] calculateHash() {
+        byte[] root = isPruned() ? transactionsRoot : txTree.getRoot();
+        int count = isPruned() ? acceptedCount : txHashes.size();
+        byte[] counts = ByteBuffer.allocate(4 * Integer.BYTES)
+                .putInt(number)
+                .putInt(count)
+                .putInt(addedCount)
+                .putInt(removedCount)
+                .array();
+        return HashCalculcator.calculateSHA256(previousHash, root, counts);
+    }
+}
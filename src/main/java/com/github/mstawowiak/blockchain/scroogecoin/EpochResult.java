@@ -0,0 +1,38 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transactions accepted in an epoch together with the change they make to the UTXO pool and the
+ * conflicts found between its proposed transactions
+ */
+public final class EpochResult {
+
+    private final List<Transaction> accepted;
+    private final UTXODelta delta;
+    private final ConflictReport conflicts;
+
+    public EpochResult(List<Transaction> accepted, UTXODelta delta) {
+        this(accepted, delta, ConflictReport.empty());
+    }
+
+    public EpochResult(List<Transaction> accepted, UTXODelta delta, ConflictReport conflicts) {
+        this.accepted = Collections.unmodifiableList(accepted);
+        this.delta = delta;
+        this.conflicts = conflicts;
+    }
+
+    /** @return accepted transactions, in the order they were applied */
+    public List<Transaction> getAccepted() {
+        return accepted;
+    }
+
+    public UTXODelta getDelta() {
+        return delta;
+    }
+
+    public ConflictReport getConflicts() {
+        return conflicts;
+    }
+}
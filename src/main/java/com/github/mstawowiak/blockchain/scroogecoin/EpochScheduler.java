@@ -0,0 +1,305 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects submitted transactions and closes epochs of {@link TxHandler#handleTxs(List)} by itself,
+ * sizing them to meet a confirmation latency target and a throughput goal.
+ *
+ * <p>Validation time of an epoch is modelled as a fixed overhead plus a cost per transaction, fitted
+ * online from the measured epochs by {@link EpochCostModel}. After every epoch the target batch size
+ * becomes the smallest one whose throughput reaches the goal, but never one whose predicted
+ * validation time exceeds the latency target. An epoch is closed when the target size is reached or
+ * when its oldest transaction has waited as long as the latency target leaves after validation,
+ * bounded by the configured maximum wait.
+ *
+ * <p>A transaction is copied when submitted, so it is validated and applied as it was then.
+ * Transactions failing the stateless rules are rejected by {@link TxAdmission} on the submitting
+ * thread; the others are queued and validated against the ledger by a single scheduler thread,
+ * which does not check those rules again. The
+ * queue is bounded, so submitters block while it is full.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class EpochScheduler implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 50;
+    private static final long INITIAL_PER_TX_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final TxHandler txHandler;
+    private final long latencyTargetNanos;
+    private final double throughputGoal;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<PendingTx> queue;
+    private final EpochCostModel costModel = new EpochCostModel(INITIAL_PER_TX_NANOS);
+    private final Thread scheduler;
+    private final AtomicLong epochCount = new AtomicLong();
+
+    private volatile int targetBatchSize;
+    private volatile long lastEpochNanos;
+    private volatile boolean running = true;
+
+    private EpochScheduler(Builder builder) {
+        this.txHandler = new TxHandler(builder.utxoPool);
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(builder.latencyTargetMillis);
+        this.throughputGoal = builder.throughputGoal;
+        this.minBatchSize = builder.minBatchSize;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxWaitMillis);
+        this.queue = new LinkedBlockingQueue<>(builder.maxQueuedTxs);
+        this.targetBatchSize = costModel.batchSize(latencyTargetNanos, throughputGoal, minBatchSize, maxBatchSize);
+
+        this.scheduler = new Thread(this::scheduleLoop, "epoch-scheduler");
+        this.scheduler.setDaemon(true);
+        this.scheduler.start();
+    }
+
+    public static Builder builder(UTXOPool utxoPool) {
+        return new Builder(utxoPool);
+    }
+
+    /**
+     * Submits a copy of {@code tx} for the next epoch, blocking while the queue is full.
+     *
+     * @return future completed with true if {@code tx} was accepted and applied to the ledger, or
+     *         false if it was rejected
+     */
+    public CompletableFuture<Boolean> submit(Transaction tx) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Transaction submitted = tx.copy();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+        } else if (TxAdmission.admit(submitted)) {
+            try {
+                PendingTx pending = new PendingTx(submitted, result, System.nanoTime());
+                queue.put(pending);
+                // closed meanwhile: the scheduler may have left already, unless it or close() took it
+                if (!running && queue.remove(pending)) {
+                    result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(ex);
+            }
+        } else {
+            result.complete(false);
+        }
+        return result;
+    }
+
+    /** @return number of transactions the scheduler currently aims to put in an epoch */
+    public int getTargetBatchSize() {
+        return targetBatchSize;
+    }
+
+    /** @return number of epochs closed so far */
+    public long getEpochCount() {
+        return epochCount.get();
+    }
+
+    /** @return validation time of the last epoch, in nanoseconds */
+    public long getLastEpochNanos() {
+        return lastEpochNanos;
+    }
+
+    /** @return ledger the epochs are applied to; read it only once the scheduler is closed */
+    public TxHandler getTxHandler() {
+        return txHandler;
+    }
+
+    /** Stops accepting transactions, closes epochs of the ones already submitted and stops the thread */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            scheduler.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // transactions submitted while closing, after the scheduler thread left
+        for (PendingTx pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+        }
+    }
+
+    private void scheduleLoop() {
+        List<PendingTx> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTx first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, first.submittedNanos + waitBudgetNanos());
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Adds queued transactions to {@code batch} until the target size or {@code deadline} is reached */
+    private void collect(List<PendingTx> batch, long deadline) throws InterruptedException {
+        int target = targetBatchSize;
+        while (batch.size() < target) {
+            queue.drainTo(batch, target - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= target || remaining <= 0 || !running && queue.isEmpty()) {
+                return;
+            }
+            PendingTx next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /** @return how long the oldest transaction of an epoch may wait for the epoch to fill up */
+    private long waitBudgetNanos() {
+        long afterValidation = latencyTargetNanos - (long) costModel.predictNanos(targetBatchSize);
+        return Math.max(0, Math.min(maxWaitNanos, afterValidation));
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void commit(List<PendingTx> batch) {
+        List<Transaction> txs = new ArrayList<>(batch.size());
+        for (PendingTx pending : batch) {
+            txs.add(pending.tx);
+        }
+
+        long start = System.nanoTime();
+        Set<Transaction> accepted = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            accepted.addAll(txHandler.handleTxs(txs, admittedTxs(txs.size()), new BitSet()));
+        } catch (RuntimeException ex) {
+            commitOneByOne(batch);
+            return;
+        }
+        lastEpochNanos = System.nanoTime() - start;
+
+        costModel.observe(txs.size(), lastEpochNanos);
+        targetBatchSize = costModel.batchSize(latencyTargetNanos, throughputGoal, minBatchSize, maxBatchSize);
+        epochCount.incrementAndGet();
+
+        for (PendingTx pending : batch) {
+            pending.result.complete(accepted.contains(pending.tx));
+        }
+    }
+
+    /**
+     * Applies the transactions of a failed epoch, which the ledger reverted, one epoch each, so only
+     * the ones failing themselves complete exceptionally. These epochs are not fed to the cost model.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void commitOneByOne(List<PendingTx> batch) {
+        for (PendingTx pending : batch) {
+            try {
+                List<Transaction> accepted = txHandler.handleTxs(Collections.singletonList(pending.tx),
+                        admittedTxs(1), new BitSet());
+                epochCount.incrementAndGet();
+                pending.result.complete(!accepted.isEmpty());
+            } catch (RuntimeException ex) {
+                pending.result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /** @return bits marking the first {@code count} transactions of an epoch as admitted */
+    private static BitSet admittedTxs(int count) {
+        BitSet admitted = new BitSet(count);
+        admitted.set(0, count);
+        return admitted;
+    }
+
+    private static final class PendingTx {
+        /** copy of the submitted transaction, owned by the scheduler */
+        private final Transaction tx;
+        private final CompletableFuture<Boolean> result;
+        private final long submittedNanos;
+
+        private PendingTx(Transaction tx, CompletableFuture<Boolean> result, long submittedNanos) {
+            this.tx = tx;
+            this.result = result;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+
+    public static final class Builder {
+        private final UTXOPool utxoPool;
+        private long latencyTargetMillis = 100;
+        private double throughputGoal = 1000;
+        private int minBatchSize = 1;
+        private int maxBatchSize = 4096;
+        private long maxWaitMillis = 50;
+        private int maxQueuedTxs = 65_536;
+
+        private Builder(UTXOPool utxoPool) {
+            this.utxoPool = utxoPool;
+        }
+
+        /** Time from submission by which a transaction should be confirmed */
+        public Builder latencyTargetMillis(long latencyTargetMillis) {
+            this.latencyTargetMillis = latencyTargetMillis;
+            return this;
+        }
+
+        /** Transactions per second the epochs should be able to validate */
+        public Builder throughputGoal(double throughputGoal) {
+            this.throughputGoal = throughputGoal;
+            return this;
+        }
+
+        public Builder minBatchSize(int minBatchSize) {
+            this.minBatchSize = minBatchSize;
+            return this;
+        }
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /** Longest time the oldest transaction waits for an epoch to fill up */
+        public Builder maxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        /** Most transactions waiting for an epoch before {@link #submit(Transaction)} blocks */
+        public Builder maxQueuedTxs(int maxQueuedTxs) {
+            this.maxQueuedTxs = maxQueuedTxs;
+            return this;
+        }
+
+        public EpochScheduler build() {
+            if (maxQueuedTxs < 1) {
+                throw new IllegalArgumentException("Max queued transactions must be positive");
+            }
+            if (latencyTargetMillis < 1 || throughputGoal <= 0 || maxWaitMillis < 0) {
+                throw new IllegalArgumentException("Latency target and throughput goal must be positive,"
+                        + " max wait non-negative");
+            }
+            if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+                throw new IllegalArgumentException("Expected 1 <= min batch size <= max batch size");
+            }
+            return new EpochScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.security.PublicKey;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, versioned read view of a ledger's UTXO set, published by {@link TxHandler} after
+ * every epoch once enabled by {@link TxHandler#enableSnapshots()}. Any number of threads may
+ * query a snapshot without locking while later epochs are applied.
+ *
+ * <p>A snapshot is a chain of per epoch deltas over a full base copy of the set. Publishing an
+ * epoch only adds its delta, O(changes); once the chain grows deeper than {@value #MAX_CHAIN_DEPTH}
+ * the deltas are merged into one, and once that delta grows beyond half of the base it is folded
+ * into a new base. Versions which are no longer referenced by any reader, nor shared by a newer
+ * snapshot, are reclaimed by the garbage collector.
+ */
+public final class LedgerSnapshot {
+
+    /** Deepest chain of deltas over a base before they are merged */
+    static final int MAX_CHAIN_DEPTH = 16;
+
+    private final long version;
+    private final Base base;
+    private final Overlay overlay;
+    private final int size;
+
+    private LedgerSnapshot(long version, Base base, Overlay overlay, int size) {
+        this.version = version;
+        this.base = base;
+        this.overlay = overlay;
+        this.size = size;
+    }
+
+    /** @return snapshot of {@code version} holding the current content of {@code utxoPool} */
+    static LedgerSnapshot of(long version, UTXOPool utxoPool) {
+        Map<UTXO, Transaction.Output> entries = new HashMap<>();
+        for (UTXO utxo : utxoPool.getAllUTXO()) {
+            entries.put(utxo, utxoPool.getTxOutput(utxo));
+        }
+        return new LedgerSnapshot(version, new Base(entries), null, entries.size());
+    }
+
+    /** @return snapshot of {@code version} with {@code delta} applied on top of this one */
+    LedgerSnapshot apply(long version, UTXODelta delta) {
+        Overlay applied = new Overlay(delta.getAdded(), delta.getRemoved().keySet(), balanceChange(delta), overlay);
+        int appliedSize = size + delta.getAdded().size() - delta.getRemoved().size();
+        if (applied.depth <= MAX_CHAIN_DEPTH) {
+            return new LedgerSnapshot(version, base, applied, appliedSize);
+        }
+
+        Overlay merged = applied.merge();
+        if (merged.added.size() + merged.removed.size() <= base.entries.size() / 2) {
+            return new LedgerSnapshot(version, base, merged, appliedSize);
+        }
+        return new LedgerSnapshot(version, base.fold(merged), null, appliedSize);
+    }
+
+    /** @return number of epochs published before this snapshot, counting rollbacks */
+    public long getVersion() {
+        return version;
+    }
+
+    /** @return the transaction output of {@code utxo}, or null if it is not unspent in this snapshot */
+    public Transaction.Output getTxOutput(UTXO utxo) {
+        for (Overlay delta = overlay; delta != null; delta = delta.parent) {
+            Transaction.Output added = delta.added.get(utxo);
+            if (added != null) {
+                return added;
+            }
+            if (delta.removed.contains(utxo)) {
+                return null;
+            }
+        }
+        return base.entries.get(utxo);
+    }
+
+    /** @return true if {@code utxo} is unspent in this snapshot */
+    public boolean contains(UTXO utxo) {
+        return getTxOutput(utxo) != null;
+    }
+
+    /** @return sum of the unspent outputs paying to {@code address} */
+    public double getBalance(PublicKey address) {
+        double balance = base.balances.getOrDefault(address, 0.0);
+        for (Overlay delta = overlay; delta != null; delta = delta.parent) {
+            balance += delta.balanceChange.getOrDefault(address, 0.0);
+        }
+        return balance;
+    }
+
+    /** @return number of unspent outputs */
+    public int size() {
+        return size;
+    }
+
+    /** @return number of deltas a lookup may go through before reaching the base */
+    int getChainDepth() {
+        return overlay == null ? 0 : overlay.depth;
+    }
+
+    private static Map<PublicKey, Double> balanceChange(UTXODelta delta) {
+        Map<PublicKey, Double> change = new HashMap<>();
+        delta.getAdded().values().forEach(output -> addBalance(change, output, 1));
+        delta.getRemoved().values().forEach(output -> addBalance(change, output, -1));
+        return change;
+    }
+
+    private static void addBalance(Map<PublicKey, Double> balances, Transaction.Output output, int sign) {
+        if (output.address != null) {
+            balances.merge(output.address, sign * output.value, Double::sum);
+        }
+    }
+
+    /** Full copy of the UTXO set with balances per address */
+    private static final class Base {
+        private final Map<UTXO, Transaction.Output> entries;
+        private final Map<PublicKey, Double> balances = new HashMap<>();
+
+        private Base(Map<UTXO, Transaction.Output> entries) {
+            this.entries = entries;
+            entries.values().forEach(output -> addBalance(balances, output, 1));
+        }
+
+        private Base fold(Overlay merged) {
+            Map<UTXO, Transaction.Output> folded = new HashMap<>(entries);
+            folded.keySet().removeAll(merged.removed);
+            folded.putAll(merged.added);
+            return new Base(folded);
+        }
+    }
+
+    /** Net change of one or more consecutive epochs, over its parent */
+    private static final class Overlay {
+        private final Map<UTXO, Transaction.Output> added;
+        private final Set<UTXO> removed;
+        private final Map<PublicKey, Double> balanceChange;
+        private final Overlay parent;
+        private final int depth;
+
+        private Overlay(Map<UTXO, Transaction.Output> added, Set<UTXO> removed,
+                        Map<PublicKey, Double> balanceChange, Overlay parent) {
+            this.added = Collections.unmodifiableMap(new HashMap<>(added));
+            this.removed = Collections.unmodifiableSet(new HashSet<>(removed));
+            this.balanceChange = balanceChange;
+            this.parent = parent;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+
+        /** @return a single overlay, over the base, equivalent to this chain */
+        private Overlay merge() {
+            Deque<Overlay> chain = new ArrayDeque<>();
+            for (Overlay delta = this; delta != null; delta = delta.parent) {
+                chain.push(delta);
+            }
+
+            Map<UTXO, Transaction.Output> mergedAdded = new HashMap<>();
+            Set<UTXO> mergedRemoved = new HashSet<>();
+            Map<PublicKey, Double> mergedBalances = new HashMap<>();
+            for (Overlay delta : chain) {
+                for (UTXO utxo : delta.removed) {
+                    if (mergedAdded.remove(utxo) == null) {
+                        mergedRemoved.add(utxo);
+                    }
+                }
+                mergedAdded.putAll(delta.added);
+                delta.balanceChange.forEach((address, change) -> mergedBalances.merge(address, change, Double::sum));
+            }
+            return new Overlay(mergedAdded, mergedRemoved, mergedBalances, null);
+        }
+    }
+}
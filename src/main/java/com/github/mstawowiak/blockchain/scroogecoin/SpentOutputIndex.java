@@ -0,0 +1,68 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the UTXOs spent by the transactions of an epoch, built in a single pass over their
+ * inputs. Detects every UTXO claimed by more than one transaction before any of them is applied.
+ */
+public final class SpentOutputIndex {
+
+    private final Map<UTXO, Transaction> firstSpenders;
+    private final ConflictReport conflictReport;
+
+    private SpentOutputIndex(List<Transaction> txs) {
+        int inputCount = 0;
+        for (Transaction tx : txs) {
+            inputCount += tx.numInputs();
+        }
+
+        firstSpenders = new HashMap<>(inputCount * 4 / 3 + 1);
+        Map<UTXO, List<Transaction>> conflicts = new LinkedHashMap<>();
+        for (Transaction tx : txs) {
+            for (Transaction.Input input : tx.getInputs()) {
+                UTXO utxo = UTXO.of(input.prevTxHash, input.outputIndex);
+                Transaction first = firstSpenders.putIfAbsent(utxo, tx);
+                if (first == null || first == tx) {
+                    continue;
+                }
+                List<Transaction> spenders = conflicts.computeIfAbsent(utxo, key -> newSpenders(first));
+                // a transaction spending the same UTXO twice is reported once
+                if (spenders.get(spenders.size() - 1) != tx) {
+                    spenders.add(tx);
+                }
+            }
+        }
+        conflictReport = new ConflictReport(conflicts);
+    }
+
+    public static SpentOutputIndex of(List<Transaction> txs) {
+        return new SpentOutputIndex(txs);
+    }
+
+    /** @return all UTXOs spent by the indexed transactions */
+    public Set<UTXO> getSpentOutputs() {
+        return Collections.unmodifiableSet(firstSpenders.keySet());
+    }
+
+    /** @return the first indexed transaction spending {@code utxo}, or null if none does */
+    public Transaction getFirstSpender(UTXO utxo) {
+        return firstSpenders.get(utxo);
+    }
+
+    public ConflictReport getConflictReport() {
+        return conflictReport;
+    }
+
+    private static List<Transaction> newSpenders(Transaction first) {
+        List<Transaction> spenders = new ArrayList<>(2);
+        spenders.add(first);
+        return spenders;
+    }
+}
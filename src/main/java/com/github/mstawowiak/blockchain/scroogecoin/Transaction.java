@@ -1,8 +1,8 @@
 package com.github.mstawowiak.blockchain.scroogecoin;
 
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.AddressRegistry;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
 import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -11,6 +11,9 @@ import java.util.List;
 @SuppressWarnings({"PMD.UseArraysAsList", "PMD.ForLoopCanBeForeach"})
 public class Transaction {
 
+    /** Empty transaction owning the outputs created by {@link #detachedOutput(double, PublicKey)} */
+    private static final Transaction DETACHED = new Transaction();
+
     /** hash of the transaction, its unique id */
     private byte[] hash;
     private final List<Input> inputs;
@@ -52,6 +55,19 @@ public class Transaction {
             value = val;
             address = addr;
         }
+
+        /** @return true if this output does not keep the transaction which created it reachable */
+        public boolean isDetached() {
+            return Transaction.this == DETACHED;
+        }
+    }
+
+    /**
+     * Creates an output owned by a shared empty transaction instead of the one which created it, so
+     * it can be stored without keeping that transaction's inputs and signatures reachable
+     */
+    public static Output detachedOutput(double value, PublicKey address) {
+        return DETACHED.new Output(value, address);
     }
 
     public Transaction() {
@@ -65,6 +81,23 @@ public class Transaction {
         outputs = new ArrayList<>(tx.outputs);
     }
 
+    /**
+     * @return copy of this transaction whose hash, inputs and outputs share no mutable state with
+     *         this one, so it keeps its content whatever is done to this transaction afterwards
+     */
+    public Transaction copy() {
+        Transaction copy = new Transaction();
+        for (int i = 0; i < inputs.size(); i++) {
+            copy.addInput(inputs.get(i).prevTxHash, inputs.get(i).outputIndex);
+            copy.addSignature(inputs.get(i).signature, i);
+        }
+        for (Output output : outputs) {
+            copy.addOutput(output.value, output.address);
+        }
+        copy.hash = hash == null ? null : hash.clone();
+        return copy;
+    }
+
     public void addInput(byte[] prevTxHash, int outputIndex) {
         Input in = new Input(prevTxHash, outputIndex);
         inputs.add(in);
@@ -96,100 +129,80 @@ public class Transaction {
             return null;
         }
         Input in = inputs.get(index);
-        byte[] prevTxHash = in.prevTxHash;
-        ByteBuffer byteBuffer = ByteBuffer.allocate(Integer.SIZE / 8);
-        byteBuffer.putInt(in.outputIndex);
-        byte[] outputIndex = byteBuffer.array();
-
-        List<Byte> sigData = new ArrayList<>();
-        if (prevTxHash != null) {
-            for (int i = 0; i < prevTxHash.length; i++) {
-                sigData.add(prevTxHash[i]);
-            }
-        }
-        for (int i = 0; i < outputIndex.length; i++) {
-            sigData.add(outputIndex[i]);
-        }
-        for (Output op : outputs) {
-            ByteBuffer bo = ByteBuffer.allocate(Double.SIZE / 8);
-            bo.putDouble(op.value);
-            byte[] value = bo.array();
-            byte[] addressBytes = op.address.getEncoded();
-            for (int i = 0; i < value.length; i++) {
-                sigData.add(value[i]);
-            }
-
-            for (int i = 0; i < addressBytes.length; i++) {
-                sigData.add(addressBytes[i]);
-            }
-        }
-        byte[] sigD = new byte[sigData.size()];
-        int idx = 0;
-        for (Byte sb : sigData) {
-            sigD[idx++] = sb;
-        }
-        return sigD;
+        byte[][] addresses = outputAddresses();
+        ByteBuffer sigData = ByteBuffer.allocate(inputLength(in, false) + outputsLength(addresses));
+        putInput(sigData, in, false);
+        putOutputs(sigData, addresses);
+        return sigData.array();
     }
 
     public void addSignature(byte[] signature, int index) {
         inputs.get(index).addSignature(signature);
     }
 
-    @SuppressWarnings("PMD.CyclomaticComplexity")
     public byte[] getRawTx() {
-        ArrayList<Byte> rawTx = new ArrayList<Byte>();
+        byte[][] addresses = outputAddresses();
+        int length = outputsLength(addresses);
         for (Input in : inputs) {
-            byte[] prevTxHash = in.prevTxHash;
-            ByteBuffer byteBuffer = ByteBuffer.allocate(Integer.SIZE / 8);
-            byteBuffer.putInt(in.outputIndex);
-            byte[] outputIndex = byteBuffer.array();
-            byte[] signature = in.signature;
-            if (prevTxHash != null) {
-                for (int i = 0; i < prevTxHash.length; i++) {
-                    rawTx.add(prevTxHash[i]);
-                }
-            }
+            length += inputLength(in, true);
+        }
+        ByteBuffer rawTx = ByteBuffer.allocate(length);
+        for (Input in : inputs) {
+            putInput(rawTx, in, true);
+        }
+        putOutputs(rawTx, addresses);
+        return rawTx.array();
+    }
 
-            for (int i = 0; i < outputIndex.length; i++) {
-                rawTx.add(outputIndex[i]);
-            }
-            if (signature != null) {
-                for (int i = 0; i < signature.length; i++) {
-                    rawTx.add(signature[i]);
-                }
-            }
+    /** @return encoded addresses of the outputs, shared with {@link AddressRegistry} if canonical */
+    private byte[][] outputAddresses() {
+        byte[][] addresses = new byte[outputs.size()][];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = AddressRegistry.encodingOf(outputs.get(i).address);
         }
-        for (Output op : outputs) {
-            ByteBuffer byteBuffer = ByteBuffer.allocate(Double.SIZE / 8);
-            byteBuffer.putDouble(op.value);
-            byte[] value = byteBuffer.array();
-            byte[] addressBytes = op.address.getEncoded();
-            for (int i = 0; i < value.length; i++) {
-                rawTx.add(value[i]);
-            }
-            for (int i = 0; i < addressBytes.length; i++) {
-                rawTx.add(addressBytes[i]);
-            }
+        return addresses;
+    }
 
+    private static int inputLength(Input in, boolean withSignature) {
+        int length = Integer.BYTES;
+        if (in.prevTxHash != null) {
+            length += in.prevTxHash.length;
         }
-        byte[] tx = new byte[rawTx.size()];
-        int idx = 0;
-        for (Byte bb : rawTx) {
-            tx[idx++] = bb;
+        if (withSignature && in.signature != null) {
+            length += in.signature.length;
         }
-        return tx;
+        return length;
     }
 
-    public void calculateHash() {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(getRawTx());
-            hash = md.digest();
-        } catch (NoSuchAlgorithmException ex) {
-            ex.printStackTrace(System.err);
+    private static void putInput(ByteBuffer target, Input in, boolean withSignature) {
+        if (in.prevTxHash != null) {
+            target.put(in.prevTxHash);
+        }
+        target.putInt(in.outputIndex);
+        if (withSignature && in.signature != null) {
+            target.put(in.signature);
         }
     }
 
+    private static int outputsLength(byte[][] addresses) {
+        int length = 0;
+        for (byte[] address : addresses) {
+            length += Double.BYTES + address.length;
+        }
+        return length;
+    }
+
+    private void putOutputs(ByteBuffer target, byte[][] addresses) {
+        for (int i = 0; i < addresses.length; i++) {
+            target.putDouble(outputs.get(i).value);
+            target.put(addresses[i]);
+        }
+    }
+
+    public void calculateHash() {
+        hash = HashCalculcator.calculateSHA256(getRawTx());
+    }
+
     @SuppressWarnings("PMD.ArrayIsStoredDirectly")
     public void setHash(byte[] hash) {
         this.hash = hash;
@@ -0,0 +1,127 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar view of an epoch: inputs and outputs of all transactions flattened into parallel
+ * arrays, so that cheap validation rules run as tight loops instead of walking object graphs.
+ *
+ * <p>Inputs of transaction {@code t} occupy positions {@code inputStart[t]} to
+ * {@code inputStart[t + 1] - 1} of the input columns, likewise for outputs. Addresses are
+ * replaced by ids of a dictionary local to the batch.
+ */
+@SuppressWarnings("PMD.MethodReturnsInternalArray")
+public final class TransactionBatch {
+
+    private final List<Transaction> txs;
+
+    private final int[] inputStart;
+    private final byte[][] inputPrevTxHash;
+    private final int[] inputOutputIndex;
+    private final byte[][] inputSignature;
+
+    private final int[] outputStart;
+    private final double[] outputValue;
+    private final int[] outputAddressId;
+    private final List<PublicKey> addresses;
+
+    private TransactionBatch(List<Transaction> txs) {
+        this.txs = Collections.unmodifiableList(new ArrayList<>(txs));
+
+        int inputCount = 0;
+        int outputCount = 0;
+        for (Transaction tx : txs) {
+            inputCount += tx.numInputs();
+            outputCount += tx.numOutputs();
+        }
+
+        inputStart = new int[txs.size() + 1];
+        inputPrevTxHash = new byte[inputCount][];
+        inputOutputIndex = new int[inputCount];
+        inputSignature = new byte[inputCount][];
+
+        outputStart = new int[txs.size() + 1];
+        outputValue = new double[outputCount];
+        outputAddressId = new int[outputCount];
+
+        Map<PublicKey, Integer> addressIds = new IdentityHashMap<>();
+        List<PublicKey> dictionary = new ArrayList<>();
+        int input = 0;
+        int output = 0;
+        for (int t = 0; t < txs.size(); t++) {
+            Transaction tx = txs.get(t);
+            inputStart[t] = input;
+            for (Transaction.Input in : tx.getInputs()) {
+                inputPrevTxHash[input] = in.prevTxHash;
+                inputOutputIndex[input] = in.outputIndex;
+                inputSignature[input] = in.signature;
+                input++;
+            }
+            outputStart[t] = output;
+            for (Transaction.Output out : tx.getOutputs()) {
+                outputValue[output] = out.value;
+                outputAddressId[output] = addressIds.computeIfAbsent(out.address, address -> {
+                    dictionary.add(address);
+                    return dictionary.size() - 1;
+                });
+                output++;
+            }
+        }
+        inputStart[txs.size()] = input;
+        outputStart[txs.size()] = output;
+        addresses = Collections.unmodifiableList(dictionary);
+    }
+
+    public static TransactionBatch of(List<Transaction> txs) {
+        return new TransactionBatch(txs);
+    }
+
+    public int size() {
+        return txs.size();
+    }
+
+    public Transaction getTransaction(int tx) {
+        return txs.get(tx);
+    }
+
+    /** @return position of the first input of each transaction, followed by the total input count */
+    public int[] getInputStart() {
+        return inputStart;
+    }
+
+    public byte[][] getInputPrevTxHash() {
+        return inputPrevTxHash;
+    }
+
+    public int[] getInputOutputIndex() {
+        return inputOutputIndex;
+    }
+
+    public byte[][] getInputSignature() {
+        return inputSignature;
+    }
+
+    /** @return position of the first output of each transaction, followed by the total output count */
+    public int[] getOutputStart() {
+        return outputStart;
+    }
+
+    public double[] getOutputValue() {
+        return outputValue;
+    }
+
+    /** @return index into {@link #getAddresses()} of each output's address */
+    public int[] getOutputAddressId() {
+        return outputAddressId;
+    }
+
+    /** @return distinct addresses of the batch, by id */
+    public List<PublicKey> getAddresses() {
+        return addresses;
+    }
+}
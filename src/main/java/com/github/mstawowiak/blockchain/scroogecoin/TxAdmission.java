@@ -0,0 +1,42 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Admission stage of validation: runs the rules of {@link TxHandler#isValidTx(Transaction)}
+ * which do not depend on the UTXO pool, outside of the epoch, so that transactions failing them
+ * are rejected before they reach it.
+ *
+ * <p>Admission leaves no mark on a transaction. Inputs and outputs are public and mutable, so
+ * {@link TxHandler#handleTxs(List)} checks every rule again against the content the transaction
+ * has at that time. {@link AsyncTxHandler} and {@link EpochScheduler} admit copies they own
+ * instead, and tell the epoch which transactions were admitted so it skips these rules for them.
+ */
+public final class TxAdmission {
+
+    private TxAdmission() {
+    }
+
+    /**
+     * Checks rules (3) and (4) of {@link TxHandler#isValidTx(Transaction)}. Safe to call
+     * concurrently for different transactions.
+     *
+     * @return true if {@code tx} was admitted
+     */
+    public static boolean admit(Transaction tx) {
+        return TxValidator.noDoubleSpend(tx) && TxValidator.allOutputsAreNonNegative(tx);
+    }
+
+    /**
+     * Admits transactions in parallel.
+     *
+     * @return admitted transactions, in the order of {@code txs}
+     */
+    public static List<Transaction> admitAll(Collection<Transaction> txs) {
+        return txs.parallelStream()
+                .filter(TxAdmission::admit)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,12 +1,37 @@
 package com.github.mstawowiak.blockchain.scroogecoin;
 
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Instrumentation;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Probe;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TxHandler {
 
     private final UTXOPool currentUtxoPool;
 
+    /** Changes made by the last epoch, used to roll it back */
+    private UndoLog lastEpochLog = new UndoLog();
+    private ConflictReport lastEpochConflicts = ConflictReport.empty();
+
+    private final EpochLog epochLog = new EpochLog();
+    /** true while the latest record of the epoch log belongs to the last epoch */
+    private boolean lastEpochRecorded;
+
+    /**
+     * Read view of the pool after the last epoch, replaced as a whole once an epoch is applied;
+     * null until {@link #enableSnapshots()} is called
+     */
+    private volatile LedgerSnapshot snapshot;
+    /**
+     * Read view before the last epoch, republished with the kept changes when it is rolled back;
+     * null if snapshots were enabled after the last epoch
+     */
+    private LedgerSnapshot snapshotBeforeLastEpoch;
+    private long snapshotVersion;
+
     /**
      * Creates a public ledger whose current UTXOPool (collection of unspent transaction outputs) is
      * {@code utxoPool}. This should make a copy of utxoPool by using the UTXOPool(UTXOPool uPool)
@@ -39,34 +64,232 @@ public class TxHandler {
      * updating the current UTXO pool as appropriate.
      */
     public List<Transaction> handleTxs(List<Transaction> possibleTxs) {
+        return handleTxs(possibleTxs, new BitSet(), new BitSet());
+    }
+
+    /**
+     * Handles an epoch like {@link #handleTxs(List)}, trusting rules (3) and (4) for the
+     * transactions of {@code admitted}, positions in {@code possibleTxs}, which passed
+     * {@link TxAdmission#admit(Transaction)}, and rule (2) for the transactions of
+     * {@code signaturesVerified}, whose signatures the caller already verified against the outputs
+     * they spend. Only for callers owning copies of those transactions, which nobody can change
+     * since.
+     *
+     * <p>If applying the epoch fails, its changes are reverted before the failure is rethrown, so
+     * the pool, the epoch log, the snapshot and the last epoch stay as they were.
+     */
+    List<Transaction> handleTxs(List<Transaction> possibleTxs, BitSet admitted, BitSet signaturesVerified) {
+        long start = Instrumentation.start(Probe.EPOCH);
+        SpentOutputIndex spentOutputs = SpentOutputIndex.of(possibleTxs);
+        UndoLog undoLog = new UndoLog();
+        List<Transaction> choosenTxs = applyReverting(possibleTxs, admitted, signaturesVerified, spentOutputs,
+                undoLog);
+        lastEpochLog = undoLog;
+        lastEpochConflicts = spentOutputs.getConflictReport();
+        UTXODelta delta = lastEpochLog.toDelta();
+        epochLog.append(choosenTxs, delta);
+        lastEpochRecorded = true;
+        if (snapshot != null) {
+            snapshotBeforeLastEpoch = snapshot;
+            snapshot = snapshot.apply(++snapshotVersion, delta);
+        }
+        Instrumentation.recordEpoch(start, possibleTxs.size(), choosenTxs.size());
+        return choosenTxs;
+    }
+
+    /**
+     * Validates an epoch like {@link #handleTxs(List)}, but leaves the current UTXO pool and the
+     * last epoch unchanged.
+     *
+     * @return transactions which would be accepted, the change they would make to the pool and the
+     * conflicts between proposed transactions
+     */
+    public EpochResult dryRun(List<Transaction> possibleTxs) {
+        SpentOutputIndex spentOutputs = SpentOutputIndex.of(possibleTxs);
+        UndoLog dryRunLog = new UndoLog();
+        try {
+            List<Transaction> choosenTxs = applyEpoch(possibleTxs, new BitSet(), new BitSet(), spentOutputs,
+                    dryRunLog);
+            return new EpochResult(choosenTxs, dryRunLog.toDelta(), spentOutputs.getConflictReport());
+        } finally {
+            dryRunLog.rollback(currentUtxoPool, 0);
+        }
+    }
+
+    /**
+     * @return transactions accepted in the last epoch, the change they made to the pool and the
+     * conflicts between its proposed transactions
+     */
+    public EpochResult getLastEpoch() {
+        return new EpochResult(new ArrayList<>(lastEpochLog.getTransactions()), lastEpochLog.toDelta(),
+                lastEpochConflicts);
+    }
+
+    /**
+     * Reverts the last epoch, restoring the UTXO pool to its state before
+     * {@link #handleTxs(List)} was called, and drops its record. Only the last epoch can be rolled
+     * back.
+     *
+     * @return reverted transactions
+     */
+    public List<Transaction> rollbackLastEpoch() {
+        return rollbackLastEpoch(0);
+    }
+
+    /**
+     * Reverts the trailing part of the last epoch, keeping the changes of its first
+     * {@code keptTxs} accepted transactions. The record of the epoch is replaced by one of the kept
+     * transactions, or dropped if none is kept.
+     *
+     * @return reverted transactions
+     */
+    public List<Transaction> rollbackLastEpoch(int keptTxs) {
+        List<Transaction> reverted = lastEpochLog.rollback(currentUtxoPool, keptTxs);
+        UTXODelta kept = lastEpochLog.toDelta();
+        if (lastEpochRecorded) {
+            epochLog.removeLast();
+            if (keptTxs > 0) {
+                epochLog.append(lastEpochLog.getTransactions(), kept);
+            } else {
+                lastEpochRecorded = false;
+            }
+        }
+        if (snapshotBeforeLastEpoch != null) {
+            snapshot = snapshotBeforeLastEpoch.apply(++snapshotVersion, kept);
+        } else if (snapshot != null) {
+            snapshot = LedgerSnapshot.of(++snapshotVersion, currentUtxoPool);
+        }
+        return reverted;
+    }
+
+    /**
+     * Starts publishing a {@link LedgerSnapshot} after every epoch, from a copy of the current
+     * pool. Snapshots are opt-in since that copy reads the whole pool, cold entries included. Must
+     * be called from the thread handling epochs; calling it again has no effect.
+     *
+     * @return the current snapshot
+     */
+    public LedgerSnapshot enableSnapshots() {
+        if (snapshot == null) {
+            snapshot = LedgerSnapshot.of(snapshotVersion, currentUtxoPool);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return immutable view of the UTXO pool as of the last epoch handled or rolled back, safe to
+     *         query from any thread while further epochs are applied
+     * @throws IllegalStateException if snapshots are not enabled by {@link #enableSnapshots()}
+     */
+    public LedgerSnapshot getSnapshot() {
+        LedgerSnapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Snapshots are not enabled");
+        }
+        return current;
+    }
+
+    /** @return hash chained records of the epochs handled by this ledger */
+    public EpochLog getEpochLog() {
+        return epochLog;
+    }
+
+    /** @return the current UTXO pool of this ledger */
+    public UTXOPool getUTXOPool() {
+        return currentUtxoPool;
+    }
+
+    /** Applies an epoch like {@link #applyEpoch}, reverting whatever it changed if it fails */
+    private List<Transaction> applyReverting(List<Transaction> possibleTxs, BitSet admitted,
+                                             BitSet signaturesVerified, SpentOutputIndex spentOutputs,
+                                             UndoLog undoLog) {
+        boolean applied = false;
+        try {
+            List<Transaction> choosenTxs = applyEpoch(possibleTxs, admitted, signaturesVerified, spentOutputs,
+                    undoLog);
+            applied = true;
+            return choosenTxs;
+        } finally {
+            if (!applied) {
+                undoLog.rollback(currentUtxoPool, 0);
+            }
+        }
+    }
+
+    /** @return transactions of {@code possibleTxs} which are {@code admitted} or pass the stateless rules */
+    private static BitSet passesStatelessRules(List<Transaction> possibleTxs, BitSet admitted) {
+        BitSet valid = admitted.get(0, possibleTxs.size());
+        if (valid.cardinality() == possibleTxs.size()) {
+            return valid;
+        }
+        List<Transaction> unchecked = new ArrayList<>(possibleTxs.size() - valid.cardinality());
+        for (int index = valid.nextClearBit(0); index < possibleTxs.size(); index = valid.nextClearBit(index + 1)) {
+            unchecked.add(possibleTxs.get(index));
+        }
+        BitSet uncheckedValid = TxValidator.passesStatelessRules(TransactionBatch.of(unchecked));
+        int position = 0;
+        for (int index = valid.nextClearBit(0); index < possibleTxs.size(); index = valid.nextClearBit(index + 1)) {
+            valid.set(index, uncheckedValid.get(position++));
+        }
+        return valid;
+    }
+
+    private List<Transaction> applyEpoch(List<Transaction> possibleTxs, BitSet admitted, BitSet signaturesVerified,
+                                         SpentOutputIndex spentOutputs, UndoLog undoLog) {
         List<Transaction> choosenTxs = new ArrayList<>();
+        currentUtxoPool.prefetch(spentOutputs.getSpentOutputs());
+        BitSet statelessValid = passesStatelessRules(possibleTxs, admitted);
+        BitSet preVerified = (BitSet) signaturesVerified.clone();
+        preVerified.and(statelessValid);
+        BitSet toVerify = (BitSet) statelessValid.clone();
+        toVerify.andNot(preVerified);
+        BitSet signaturesValid = BatchSignatureVerifier.verify(possibleTxs, toVerify, currentUtxoPool);
+        signaturesValid.or(preVerified);
 
+        int index = 0;
         for (Transaction tx : possibleTxs) {
-            if (!isValidTx(tx)) {
+            if (!signaturesValid.get(index++) || !isValidAgainstPool(tx)) {
                 continue;
             }
 
             choosenTxs.add(tx);
 
-            removeInputsFromPool(tx);
-            addOutputsToPool(tx);
+            undoLog.begin(tx);
+            removeInputsFromPool(tx, undoLog);
+            addOutputsToPool(tx, undoLog);
         }
 
         return choosenTxs;
     }
 
-    private void removeInputsFromPool(Transaction tx) {
+    /**
+     * Checks rules (1) and (5) of {@link #isValidTx(Transaction)}, which depend on the pool; rule (2)
+     * is checked for the whole epoch up front by {@link BatchSignatureVerifier}
+     */
+    private boolean isValidAgainstPool(Transaction tx) {
+        return TxValidator.allOutputsExistsInPool(tx, currentUtxoPool)
+                && TxValidator.sumInputsGeOutputs(tx, currentUtxoPool);
+    }
+
+    private void removeInputsFromPool(Transaction tx, UndoLog undoLog) {
+        List<UTXO> spent = new ArrayList<>(tx.numInputs());
         for (Transaction.Input input : tx.getInputs()) {
-            currentUtxoPool.removeUTXO(UTXO.of(input.prevTxHash, input.outputIndex));
+            UTXO utxo = UTXO.of(input.prevTxHash, input.outputIndex);
+            undoLog.removed(utxo, currentUtxoPool.getTxOutput(utxo));
+            spent.add(utxo);
         }
+        currentUtxoPool.removeUTXOs(spent);
     }
 
-    private void addOutputsToPool(Transaction tx) {
+    private void addOutputsToPool(Transaction tx, UndoLog undoLog) {
+        Map<UTXO, Transaction.Output> created = new HashMap<>();
         for (int i = 0; i < tx.getOutputs().size(); i++) {
             UTXO utxo = UTXO.of(tx.getHash(), i);
-            Transaction.Output output = tx.getOutput(i);
-
-            currentUtxoPool.addUTXO(utxo, output);
+            // the pool keeps this very instance, so the log and snapshots do not share the caller's output
+            Transaction.Output stored = UTXOPool.detach(tx.getOutput(i));
+            undoLog.added(utxo, stored);
+            created.put(utxo, stored);
         }
+        currentUtxoPool.addDetachedUTXOs(created);
     }
 }
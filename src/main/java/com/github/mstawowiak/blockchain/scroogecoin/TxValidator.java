@@ -1,51 +1,167 @@
 package com.github.mstawowiak.blockchain.scroogecoin;
 
 import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Instrumentation;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Probe;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 public final class TxValidator {
 
+    /** Up to this many inputs, a transaction is checked for double spends by comparing all pairs */
+    private static final int PAIRWISE_DOUBLE_SPEND_LIMIT = 8;
+
     public static boolean allOutputsExistsInPool(final Transaction tx, final UTXOPool utxoPool) {
-        return tx.getInputs().stream()
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        boolean valid = tx.getInputs().stream()
                 .allMatch(input -> utxoPool.contains(UTXO.of(input.prevTxHash, input.outputIndex)));
+        Instrumentation.recordRule("allOutputsExistsInPool", start, valid);
+        return valid;
     }
 
     public static boolean allInputsSignaturesAreValid(final Transaction tx, final UTXOPool utxoPool) {
-        return IntStream.range(0, tx.getInputs().size()).allMatch(index -> {
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        boolean valid = IntStream.range(0, tx.getInputs().size()).allMatch(index -> {
             Transaction.Input input = tx.getInput(index);
             UTXO utxo = UTXO.of(input.prevTxHash, input.outputIndex);
             Transaction.Output output = utxoPool.getTxOutput(utxo);
 
             return Crypto.verifySignature(output.address, tx.getRawDataToSign(index), input.signature);
         });
+        Instrumentation.recordRule("allInputsSignaturesAreValid", start, valid);
+        return valid;
     }
 
     public static boolean noDoubleSpend(final Transaction tx) {
-        return tx.getInputs().stream()
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        boolean valid = tx.getInputs().stream()
                 .map(input -> UTXO.of(input.prevTxHash, input.outputIndex))
                 .allMatch(new HashSet<>()::add);
+        Instrumentation.recordRule("noDoubleSpend", start, valid);
+        return valid;
     }
 
     public static boolean allOutputsAreNonNegative(final Transaction tx) {
-        return tx.getOutputs().stream()
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        boolean valid = tx.getOutputs().stream()
                 .allMatch(output -> output.value >= 0);
+        Instrumentation.recordRule("allOutputsAreNonNegative", start, valid);
+        return valid;
     }
 
     public static boolean sumInputsGeOutputs(final Transaction tx, final UTXOPool utxoPool) {
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
         double inputSum = tx.getInputs().stream()
                 .map(input -> UTXO.of(input.prevTxHash, input.outputIndex))
                 .map(utxo -> utxoPool.getTxOutput(utxo))
-                .map(output -> output.value)
-                .reduce(Double::sum)
-                .get();
+                .mapToDouble(output -> output.value)
+                .sum();
 
         double outputSum = tx.getOutputs().stream()
-                .map(output -> output.value)
-                .reduce(Double::sum)
-                .get();
+                .mapToDouble(output -> output.value)
+                .sum();
+
+        boolean valid = inputSum >= outputSum;
+        Instrumentation.recordRule("sumInputsGeOutputs", start, valid);
+        return valid;
+    }
+
+    /** @return transactions of {@code batch} which pass every pool independent rule */
+    public static BitSet passesStatelessRules(final TransactionBatch batch) {
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        BitSet valid = noDoubleSpend(batch);
+        valid.and(allOutputsAreNonNegative(batch));
+        Instrumentation.recordRule("passesStatelessRules.batch", start, valid.cardinality() == batch.size());
+        return valid;
+    }
+
+    /** @return transactions of {@code batch} which claim no UTXO multiple times */
+    public static BitSet noDoubleSpend(final TransactionBatch batch) {
+        int[] inputStart = batch.getInputStart();
+        byte[][] prevTxHash = batch.getInputPrevTxHash();
+        int[] outputIndex = batch.getInputOutputIndex();
+
+        BitSet valid = new BitSet(batch.size());
+        for (int tx = 0; tx < batch.size(); tx++) {
+            int from = inputStart[tx];
+            int to = inputStart[tx + 1];
+            boolean unique = to - from <= PAIRWISE_DOUBLE_SPEND_LIMIT
+                    ? pairwiseUnique(prevTxHash, outputIndex, from, to)
+                    : hashedUnique(prevTxHash, outputIndex, from, to);
+            valid.set(tx, unique);
+        }
+        return valid;
+    }
+
+    /** @return transactions of {@code batch} whose output values are all non-negative */
+    public static BitSet allOutputsAreNonNegative(final TransactionBatch batch) {
+        int[] outputStart = batch.getOutputStart();
+        double[] value = batch.getOutputValue();
+
+        BitSet valid = new BitSet(batch.size());
+        for (int tx = 0; tx < batch.size(); tx++) {
+            boolean nonNegative = true;
+            for (int output = outputStart[tx]; output < outputStart[tx + 1]; output++) {
+                nonNegative &= value[output] >= 0;
+            }
+            valid.set(tx, nonNegative);
+        }
+        return valid;
+    }
+
+    /**
+     * @return transactions of {@code batch} whose inputs are all in {@code utxoPool} with values
+     *         summing up to at least the sum of the transaction's output values
+     */
+    public static BitSet sumInputsGeOutputs(final TransactionBatch batch, final UTXOPool utxoPool) {
+        long start = Instrumentation.start(Probe.VALIDATION_RULE);
+        int[] inputStart = batch.getInputStart();
+        byte[][] prevTxHash = batch.getInputPrevTxHash();
+        int[] outputIndex = batch.getInputOutputIndex();
+        int[] outputStart = batch.getOutputStart();
+        double[] value = batch.getOutputValue();
+
+        BitSet valid = new BitSet(batch.size());
+        for (int tx = 0; tx < batch.size(); tx++) {
+            double inputSum = 0;
+            boolean resolved = true;
+            for (int input = inputStart[tx]; input < inputStart[tx + 1] && resolved; input++) {
+                Transaction.Output output = utxoPool.getTxOutput(UTXO.of(prevTxHash[input], outputIndex[input]));
+                resolved = output != null;
+                inputSum += resolved ? output.value : 0;
+            }
+            double outputSum = 0;
+            for (int output = outputStart[tx]; output < outputStart[tx + 1]; output++) {
+                outputSum += value[output];
+            }
+            valid.set(tx, resolved && inputSum >= outputSum);
+        }
+        Instrumentation.recordRule("sumInputsGeOutputs.batch", start, valid.cardinality() == batch.size());
+        return valid;
+    }
+
+    private static boolean pairwiseUnique(byte[][] prevTxHash, int[] outputIndex, int from, int to) {
+        for (int i = from; i < to; i++) {
+            for (int j = i + 1; j < to; j++) {
+                if (outputIndex[i] == outputIndex[j] && Arrays.equals(prevTxHash[i], prevTxHash[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 
-        return inputSum >= outputSum;
+    private static boolean hashedUnique(byte[][] prevTxHash, int[] outputIndex, int from, int to) {
+        Set<UTXO> claimed = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            if (!claimed.add(UTXO.of(prevTxHash[i], outputIndex[i]))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private TxValidator() {
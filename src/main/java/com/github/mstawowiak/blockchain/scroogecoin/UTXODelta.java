@@ -0,0 +1,28 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Net change of a {@link UTXOPool} made by an epoch
+ */
+public final class UTXODelta {
+
+    private final Map<UTXO, Transaction.Output> added;
+    private final Map<UTXO, Transaction.Output> removed;
+
+    public UTXODelta(Map<UTXO, Transaction.Output> added, Map<UTXO, Transaction.Output> removed) {
+        this.added = Collections.unmodifiableMap(added);
+        this.removed = Collections.unmodifiableMap(removed);
+    }
+
+    /** @return UTXOs created by the epoch and still unspent at its end */
+    public Map<UTXO, Transaction.Output> getAdded() {
+        return added;
+    }
+
+    /** @return UTXOs which existed before the epoch and were spent by it */
+    public Map<UTXO, Transaction.Output> getRemoved() {
+        return removed;
+    }
+}
@@ -1,36 +1,74 @@
 package com.github.mstawowiak.blockchain.scroogecoin;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.AddressRegistry;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Instrumentation;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Probe;
+import com.github.mstawowiak.blockchain.scroogecoin.store.HashMapUTXOStore;
+import com.github.mstawowiak.blockchain.scroogecoin.store.UTXOStore;
+import java.security.PublicKey;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class UTXOPool {
 
     /**
      * The current collection of UTXOs, with each one mapped to its corresponding transaction output
      */
-    private final Map<UTXO, Transaction.Output> map;
+    private final UTXOStore store;
 
     /** Creates a new empty UTXOPool */
     public UTXOPool() {
-        map = new HashMap<>();
+        this(new HashMapUTXOStore());
+    }
+
+    /** Creates a new UTXOPool backed by {@code store} */
+    public UTXOPool(UTXOStore store) {
+        this.store = store;
     }
 
     /** Creates a new UTXOPool that is a copy of {@code uPool} */
     public UTXOPool(UTXOPool utxoPool) {
-        map = new HashMap<>(utxoPool.map);
+        store = utxoPool.store.copy();
     }
 
-    /** Adds a mapping from UTXO {@code utxo} to transaction output @code{txOut} to the pool */
+    /**
+     * Adds a mapping from UTXO {@code utxo} to transaction output @code{txOut} to the pool. The pool
+     * stores a detached copy of {@code txOut} paying to the {@link AddressRegistry} instance of its
+     * address.
+     */
     public void addUTXO(UTXO utxo, Transaction.Output txOut) {
-        map.put(utxo, txOut);
+        store.put(utxo, detach(txOut));
+        recordSize();
+    }
+
+    /** Adds all mappings of {@code utxos} to the pool */
+    public void addUTXOs(Map<UTXO, Transaction.Output> utxos) {
+        Map<UTXO, Transaction.Output> detached = new LinkedHashMap<>(utxos.size() * 4 / 3 + 1);
+        for (Map.Entry<UTXO, Transaction.Output> entry : utxos.entrySet()) {
+            detached.put(entry.getKey(), detach(entry.getValue()));
+        }
+        store.putAll(detached);
+        recordSize();
+    }
+
+    /** Adds all mappings of {@code utxos}, whose outputs were already passed through {@link #detach} */
+    void addDetachedUTXOs(Map<UTXO, Transaction.Output> utxos) {
+        store.putAll(utxos);
+        recordSize();
     }
 
     /** Removes the UTXO {@code utxo} from the pool */
     public void removeUTXO(UTXO utxo) {
-        map.remove(utxo);
+        store.remove(utxo);
+        recordSize();
+    }
+
+    /** Removes all {@code utxos} from the pool */
+    public void removeUTXOs(Collection<UTXO> utxos) {
+        store.removeAll(utxos);
+        recordSize();
     }
 
     /**
@@ -38,21 +76,48 @@ public class UTXOPool {
      *         not in the pool.
      */
     public Transaction.Output getTxOutput(UTXO ut) {
-        return map.get(ut);
+        Transaction.Output output = store.get(ut);
+        Instrumentation.recordPoolProbe(output != null);
+        return output;
     }
 
     /** @return true if UTXO {@code utxo} is in the pool and false otherwise */
     public boolean contains(UTXO utxo) {
-        return map.containsKey(utxo);
+        boolean present = store.contains(utxo);
+        Instrumentation.recordPoolProbe(present);
+        return present;
+    }
+
+    /** Hints the pool that {@code utxos} are about to be read */
+    public void prefetch(Collection<UTXO> utxos) {
+        store.prefetch(utxos);
     }
 
     /** Returns an {@code ArrayList} of all UTXOs in the pool */
     public List<UTXO> getAllUTXO() {
-        Set<UTXO> setUTXO = map.keySet();
-        List<UTXO> allUTXO = new ArrayList<>();
-        for (UTXO ut : setUTXO) {
-            allUTXO.add(ut);
+        return store.keys();
+    }
+
+    /** @return the store backing this pool */
+    public UTXOStore getStore() {
+        return store;
+    }
+
+    private void recordSize() {
+        if (Instrumentation.isEnabled(Probe.UTXO_POOL)) {
+            Instrumentation.recordPoolSize(store.size());
+        }
+    }
+
+    /**
+     * @return detached copy of {@code txOut} paying to the canonical instance of its address, or
+     *         {@code txOut} itself if it is one already; the output the pool stores for {@code txOut}
+     */
+    static Transaction.Output detach(Transaction.Output txOut) {
+        PublicKey address = txOut.address == null ? null : AddressRegistry.intern(txOut.address);
+        if (txOut.isDetached() && address == txOut.address) {
+            return txOut;
         }
-        return allUTXO;
+        return Transaction.detachedOutput(txOut.value, address);
     }
 }
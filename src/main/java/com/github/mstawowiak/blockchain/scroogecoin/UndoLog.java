@@ -0,0 +1,95 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Record of the changes applied to a {@link UTXOPool} by the accepted transactions of one epoch,
+ * allowing to revert all of them or only the trailing ones in O(changes).
+ */
+final class UndoLog {
+
+    private final List<Change> changes = new ArrayList<>();
+
+    private final List<Transaction> txs = new ArrayList<>();
+    /** index of the first change recorded for each of {@code txs} */
+    private final List<Integer> txStarts = new ArrayList<>();
+
+    /** Starts recording the changes made by {@code tx} */
+    void begin(Transaction tx) {
+        txs.add(tx);
+        txStarts.add(changes.size());
+    }
+
+    void removed(UTXO utxo, Transaction.Output output) {
+        changes.add(new Change(utxo, output, true));
+    }
+
+    void added(UTXO utxo, Transaction.Output output) {
+        changes.add(new Change(utxo, output, false));
+    }
+
+    /** @return transactions whose changes are recorded, in the order they were applied */
+    List<Transaction> getTransactions() {
+        return txs;
+    }
+
+    /**
+     * Reverts the changes of all but the first {@code keptTxs} transactions in reverse order and
+     * forgets them.
+     *
+     * @return reverted transactions, in the order they were applied
+     */
+    List<Transaction> rollback(UTXOPool utxoPool, int keptTxs) {
+        if (keptTxs < 0 || keptTxs > txs.size()) {
+            throw new IllegalArgumentException("Can keep between 0 and " + txs.size() + " transactions, not " + keptTxs);
+        }
+        if (keptTxs == txs.size()) {
+            return new ArrayList<>();
+        }
+        int firstReverted = txStarts.get(keptTxs);
+        for (int i = changes.size() - 1; i >= firstReverted; i--) {
+            Change change = changes.get(i);
+            if (change.removal) {
+                utxoPool.addUTXO(change.utxo, change.output);
+            } else {
+                utxoPool.removeUTXO(change.utxo);
+            }
+        }
+        changes.subList(firstReverted, changes.size()).clear();
+        txStarts.subList(keptTxs, txStarts.size()).clear();
+
+        List<Transaction> reverted = new ArrayList<>(txs.subList(keptTxs, txs.size()));
+        txs.subList(keptTxs, txs.size()).clear();
+        return reverted;
+    }
+
+    /** @return net change of the pool; outputs created and spent within the epoch are left out */
+    UTXODelta toDelta() {
+        Map<UTXO, Transaction.Output> added = new LinkedHashMap<>();
+        Map<UTXO, Transaction.Output> removed = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (!change.removal) {
+                added.put(change.utxo, change.output);
+            } else if (added.remove(change.utxo) == null) {
+                removed.put(change.utxo, change.output);
+            }
+        }
+        return new UTXODelta(added, removed);
+    }
+
+    private static final class Change {
+        private final UTXO utxo;
+        private final Transaction.Output output;
+        /** true if {@code output} was removed from the pool, false if it was added */
+        private final boolean removal;
+
+        private Change(UTXO utxo, Transaction.Output output, boolean removal) {
+            this.utxo = utxo;
+            this.output = output;
+            this.removal = removal;
+        }
+    }
+}
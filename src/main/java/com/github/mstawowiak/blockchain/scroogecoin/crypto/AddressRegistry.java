@@ -0,0 +1,144 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process wide interner of public keys by X.509 encoding, so that every holder of an address shares
+ * one canonical key instance and decoding an address already in use skips {@link KeyFactory}.
+ *
+ * <p>Canonical keys are held weakly: an entry lives only while something else, typically an
+ * unspent output of a pool, references its key. Keys of transactions which are merely serialized
+ * or validated are never interned. Each canonical key keeps its encoding, so interning it again or
+ * serializing it needs neither {@link PublicKey#getEncoded()} nor hashing that encoding.
+ */
+public final class AddressRegistry {
+
+    private static final ConcurrentMap<ByteBuffer, KeyReference> BY_ENCODING = new ConcurrentHashMap<>();
+    /** the references of {@link #BY_ENCODING}, found by the identity of their key */
+    private static final ConcurrentMap<Object, KeyReference> BY_KEY = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<PublicKey> COLLECTED = new ReferenceQueue<>();
+
+    /** @return canonical instance of {@code key}, which becomes canonical if no equal key is in use */
+    public static PublicKey intern(PublicKey key) {
+        if (BY_KEY.containsKey(new KeyProbe(key))) {
+            return key;
+        }
+        return intern(key, key.getEncoded());
+    }
+
+    /**
+     * @return X.509 encoding of {@code key}; shared by all callers if {@code key} is canonical, so
+     *         it must not be modified
+     */
+    public static byte[] encodingOf(PublicKey key) {
+        KeyReference canonical = BY_KEY.get(new KeyProbe(key));
+        return canonical == null ? key.getEncoded() : canonical.encoding.array();
+    }
+
+    /**
+     * @return canonical key with the X.509 {@code encoded} form, parsed as a key of
+     *         {@code algorithm} only if no such key is in use
+     * @throws GeneralSecurityException if the key can not be decoded
+     */
+    public static PublicKey decode(String algorithm, byte[] encoded) throws GeneralSecurityException {
+        KeyReference existing = BY_ENCODING.get(ByteBuffer.wrap(encoded));
+        PublicKey canonical = existing == null ? null : existing.get();
+        if (canonical != null) {
+            return canonical;
+        }
+        byte[] copy = encoded.clone();
+        return intern(KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(copy)), copy);
+    }
+
+    /** @return number of interned keys, including ones collected but not yet expunged */
+    public static int size() {
+        expungeCollected();
+        return BY_ENCODING.size();
+    }
+
+    private static PublicKey intern(PublicKey key, byte[] encoded) {
+        expungeCollected();
+        ByteBuffer encoding = ByteBuffer.wrap(encoded);
+        while (true) {
+            KeyReference existing = BY_ENCODING.get(encoding);
+            PublicKey canonical = existing == null ? null : existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            KeyReference added = new KeyReference(key, encoding);
+            boolean installed = existing == null
+                    ? BY_ENCODING.putIfAbsent(encoding, added) == null
+                    : BY_ENCODING.replace(encoding, existing, added);
+            if (installed) {
+                BY_KEY.put(added, added);
+                return key;
+            }
+        }
+    }
+
+    private static void expungeCollected() {
+        Reference<? extends PublicKey> collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            KeyReference reference = (KeyReference) collected;
+            BY_ENCODING.remove(reference.encoding, reference);
+            BY_KEY.remove(reference);
+        }
+    }
+
+    /**
+     * Weak reference to a canonical key, remembering its encoding, also the map key to expunge once
+     * it is collected. Hashed by the identity of the key, so it stays in place in {@link #BY_KEY}
+     * once cleared.
+     */
+    private static final class KeyReference extends WeakReference<PublicKey> {
+        private final ByteBuffer encoding;
+        private final int keyHash;
+
+        private KeyReference(PublicKey key, ByteBuffer encoding) {
+            super(key, COLLECTED);
+            this.encoding = encoding;
+            this.keyHash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return keyHash;
+        }
+    }
+
+    /** Looks up the {@link KeyReference} of a key in {@link #BY_KEY} without referencing it */
+    private static final class KeyProbe {
+        private final PublicKey key;
+
+        private KeyProbe(PublicKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof KeyReference && ((KeyReference) other).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+
+    private AddressRegistry() {
+    }
+}
@@ -1,67 +1,31 @@
 package com.github.mstawowiak.blockchain.scroogecoin.crypto;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Instrumentation;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Probe;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.Signature;
-import java.security.SignatureException;
 
-@SuppressWarnings("PMD.AvoidPrintStackTrace")
 public final class Crypto {
 
-    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
-
     /**
      * @return true is {@code signature} is a valid digital signature of {@code message} under the
-     *         key {@code pubKey}. Internally, this uses RSA signature, but the student does not
-     *         have to deal with any of the implementation details of the specific signature
-     *         algorithm
+     *         key {@code pubKey}. The signature algorithm is chosen by the algorithm of the key
+     *         through {@link SignatureSchemes}; keys without a registered scheme verify nothing
      */
     public static boolean verifySignature(PublicKey pubKey, byte[] message, byte[] signature) {
-        Signature sig = initSignature();
-        try {
-            sig.initVerify(pubKey);
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
-        }
-        try {
-            sig.update(message);
-            return sig.verify(signature);
-        } catch (SignatureException e) {
-            e.printStackTrace();
-        }
-        return false;
+        long start = Instrumentation.start(Probe.SIGNATURE);
+        boolean valid = pubKey != null && SignatureSchemes.isSupported(pubKey)
+                && SignatureSchemes.forKey(pubKey).verify(pubKey, message, signature);
+        Instrumentation.recordSignature(start, valid);
+        return valid;
     }
 
     /**
-     * @return digital signature of {@code message} under the key {@code privateKey} using RSA
+     * @return digital signature of {@code message} under the key {@code privateKey}, using the
+     *         scheme registered for the algorithm of the key
      */
     public static byte[] sign(PrivateKey privateKey, byte[] message) {
-        Signature sig = initSignature();
-        try {
-            sig.initSign(privateKey);
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
-        }
-        try {
-            sig.update(message);
-            return sig.sign();
-        } catch (SignatureException e) {
-            e.printStackTrace();
-        }
-        return new byte[0];
-    }
-
-    private static Signature initSignature() {
-        Signature sig = null;
-        try {
-            sig = Signature.getInstance(SIGNATURE_ALGORITHM);
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        }
-
-        return sig;
+        return SignatureSchemes.forKey(privateKey).sign(privateKey, message);
     }
 
     private Crypto() {
@@ -0,0 +1,37 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+
+public final class ECDSA {
+
+    public static final String EC = "EC";
+    public static final String P256 = "secp256r1";
+
+    public static KeyPair generateP256() {
+        return generateP256(new SecureRandom());
+    }
+
+    /**
+     * Generates NIST P-256 key pair using given source of randomness, e.g. a seeded
+     * {@code SHA1PRNG} to get reproducible keys
+     */
+    public static KeyPair generateP256(SecureRandom random) {
+        try {
+            KeyPairGenerator keyGen = KeyPairGenerator.getInstance(EC);
+            keyGen.initialize(new ECGenParameterSpec(P256), random);
+
+            return keyGen.genKeyPair();
+        } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException ex) {
+            throw new IllegalStateException("Required cryptographic algorithm '" + EC + "' with curve '" + P256
+                    + "' is not supported", ex);
+        }
+    }
+
+    private ECDSA() {
+    }
+}
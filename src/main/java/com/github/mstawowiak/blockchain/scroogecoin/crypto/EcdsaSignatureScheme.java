@@ -0,0 +1,40 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+
+/**
+ * {@code SHA256withECDSA} signatures over NIST P-256. Public keys encode to 91 instead of 294
+ * bytes and signatures to about 72 instead of 256, and key generation and signing are faster than
+ * with RSA-2048. Verification on the JDK provider is however slower than RSA's, see
+ * {@code SignatureSchemeBenchmark}.
+ */
+public final class EcdsaSignatureScheme extends JcaSignatureScheme {
+
+    public static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+    public static final int KEY_SIZE = 256;
+
+    public EcdsaSignatureScheme() {
+        super(SIGNATURE_ALGORITHM);
+    }
+
+    @Override
+    public String getKeyAlgorithm() {
+        return ECDSA.EC;
+    }
+
+    @Override
+    public int getKeySize() {
+        return KEY_SIZE;
+    }
+
+    @Override
+    public KeyPair generateKeyPair() {
+        return ECDSA.generateP256();
+    }
+
+    @Override
+    public KeyPair generateKeyPair(SecureRandom random) {
+        return ECDSA.generateP256(random);
+    }
+}
@@ -5,6 +5,9 @@ import java.security.NoSuchAlgorithmException;
 
 public final class HashCalculcator {
 
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST =
+            ThreadLocal.withInitial(() -> newDigest(MessageDigestAlgorithm.SHA256));
+
     /**
      * Returns bytes of hash calculated using SHA-256 algorithm for payload
      *
@@ -15,6 +18,21 @@ public final class HashCalculcator {
         return calculate(payload, MessageDigestAlgorithm.SHA256);
     }
 
+    /**
+     * Returns bytes of SHA-256 hash of the concatenation of {@code parts}, reusing a digest
+     * instance per thread
+     *
+     * @param parts payload to hash, in order
+     * @return bytes of SHA-256 hash for given payload
+     */
+    public static byte[] calculateSHA256(byte[]... parts) {
+        MessageDigest md = SHA256_DIGEST.get();
+        for (byte[] part : parts) {
+            md.update(part);
+        }
+        return md.digest();
+    }
+
     /**
      * Returns bytes of hash calculated using {@link MessageDigestAlgorithm} for given payload
      *
@@ -23,11 +41,15 @@ public final class HashCalculcator {
      * @return bytes of hash for given payload, calculated with given algorithm
      */
     public static byte[] calculate(String payload, MessageDigestAlgorithm algorithm) {
-        try {
-            MessageDigest md = MessageDigest.getInstance(algorithm.getAlgorithm());
-            md.update(payload.getBytes());
+        MessageDigest md = newDigest(algorithm);
+        md.update(payload.getBytes());
 
-            return md.digest();
+        return md.digest();
+    }
+
+    private static MessageDigest newDigest(MessageDigestAlgorithm algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm.getAlgorithm());
         } catch (NoSuchAlgorithmException ex) {
             throw new IllegalStateException("Required crypto algorithm '" + algorithm + "' is not supported", ex);
         }
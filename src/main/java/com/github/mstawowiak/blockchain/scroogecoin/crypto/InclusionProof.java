@@ -0,0 +1,77 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.MessageDigest;
+
+/**
+ * Proof that a hash is the leaf at a given position of a {@link MerkleTree} with a given root
+ */
+public final class InclusionProof {
+
+    private final byte[] hash;
+    private final int index;
+    private final int leafCount;
+    private final byte[][] siblings;
+
+    /**
+     * @param hash proven leaf, before leaf hashing
+     * @param index position of the leaf
+     * @param leafCount number of leaves of the tree
+     * @param siblings hashes of the siblings on the path from the leaf up to the root, skipping
+     *                 levels where the path node is promoted without a sibling
+     */
+    public InclusionProof(byte[] hash, int index, int leafCount, byte[][] siblings) {
+        if (index < 0 || index >= leafCount) {
+            throw new IllegalArgumentException("Leaf " + index + " is not in a tree of " + leafCount);
+        }
+        this.hash = hash.clone();
+        this.index = index;
+        this.leafCount = leafCount;
+        this.siblings = new byte[siblings.length][];
+        for (int i = 0; i < siblings.length; i++) {
+            this.siblings[i] = siblings[i].clone();
+        }
+    }
+
+    public byte[] getHash() {
+        return hash.clone();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /** @return number of sibling hashes in the proof */
+    public int getLength() {
+        return siblings.length;
+    }
+
+    /** @return root of the tree this proof was taken from, or null if the proof is malformed */
+    public byte[] computeRoot() {
+        byte[] node = MerkleTree.leafHash(hash);
+        int used = 0;
+        int position = index;
+        for (int count = leafCount; count > 1; count = (count + 1) / 2) {
+            int sibling = position ^ 1;
+            if (sibling < count) {
+                if (used == siblings.length) {
+                    return null;
+                }
+                node = (position & 1) == 0
+                        ? SparseMerkleTree.branchHash(node, siblings[used++])
+                        : SparseMerkleTree.branchHash(siblings[used++], node);
+            }
+            position >>>= 1;
+        }
+        return used == siblings.length ? node : null;
+    }
+
+    /** @return true if this proof leads to {@code root} */
+    public boolean verify(byte[] root) {
+        byte[] computed = computeRoot();
+        return computed != null && MessageDigest.isEqual(computed, root);
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+
+/**
+ * Scheme backed by a JCA {@link Signature} algorithm, reusing one {@link Signature} instance per
+ * thread. Missing or malformed signatures and keys, which anyone submitting a transaction can
+ * produce, fail verification without being logged. Signing with an unusable key is an error of the
+ * caller and throws {@link IllegalStateException}.
+ */
+abstract class JcaSignatureScheme implements SignatureScheme {
+
+    private final String signatureAlgorithm;
+    private final ThreadLocal<Signature> signatures;
+
+    JcaSignatureScheme(String signatureAlgorithm) {
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.signatures = ThreadLocal.withInitial(this::newSignature);
+    }
+
+    @Override
+    public String getName() {
+        return signatureAlgorithm;
+    }
+
+    @Override
+    public byte[] sign(PrivateKey privateKey, byte[] message) {
+        Signature sig = signatures.get();
+        try {
+            sig.initSign(privateKey);
+            sig.update(message);
+            return sig.sign();
+        } catch (InvalidKeyException | SignatureException e) {
+            throw new IllegalStateException("Could not sign with " + signatureAlgorithm, e);
+        }
+    }
+
+    /** Providers may throw unchecked exceptions for garbage signatures, which count as invalid too */
+    @Override
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    public boolean verify(PublicKey publicKey, byte[] message, byte[] signature) {
+        if (signature == null) {
+            return false;
+        }
+        Signature sig = signatures.get();
+        try {
+            sig.initVerify(publicKey);
+            sig.update(message);
+            return sig.verify(signature);
+        } catch (InvalidKeyException | SignatureException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Initializes a dedicated {@link Signature} with {@code publicKey} once; JCA resets it to that
+     * state after every verification, so the key is not parsed again for each signature
+     */
+    @Override
+    public SignatureVerifier newVerifier(PublicKey publicKey) {
+        Signature sig = newSignature();
+        try {
+            sig.initVerify(publicKey);
+        } catch (InvalidKeyException e) {
+            return (message, signature) -> false;
+        }
+        return new KeyVerifier(sig, publicKey);
+    }
+
+    /** @return a new instance of the signature algorithm of this scheme */
+    Signature newSignature() {
+        try {
+            return Signature.getInstance(signatureAlgorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Required crypto algorithm '" + signatureAlgorithm + "' is not supported",
+                    ex);
+        }
+    }
+
+    private static final class KeyVerifier implements SignatureVerifier {
+        private final Signature sig;
+        private final PublicKey publicKey;
+
+        private KeyVerifier(Signature sig, PublicKey publicKey) {
+            this.sig = sig;
+            this.publicKey = publicKey;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        public boolean verify(byte[] message, byte[] signature) {
+            if (signature == null) {
+                return false;
+            }
+            try {
+                sig.update(message);
+                return sig.verify(signature);
+            } catch (SignatureException | RuntimeException e) {
+                reset();
+                return false;
+            }
+        }
+
+        /** Brings {@link #sig} back to its initialized state after a failed verification */
+        private void reset() {
+            try {
+                sig.initVerify(publicKey);
+            } catch (InvalidKeyException e) {
+                throw new IllegalStateException("Key accepted by the verifier was rejected on reset", e);
+            }
+        }
+    }
+}
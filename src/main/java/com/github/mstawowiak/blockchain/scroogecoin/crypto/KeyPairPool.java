@@ -0,0 +1,194 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of key pairs of a {@link SignatureScheme}, RSA by default, pre-generated on background
+ * threads.
+ *
+ * <p>The pool is filled up to its capacity, then the generators sleep until its depth drops to the
+ * refill threshold. {@link #take()} serves keys from the pool and generates one on the caller's
+ * thread only when the pool is empty.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class KeyPairPool implements AutoCloseable {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final SignatureScheme scheme;
+    private final int refillThreshold;
+    private final BlockingQueue<KeyPair> pool;
+    private final ExecutorService generators;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition refillNeeded = lock.newCondition();
+    private boolean refilling = true;
+    private volatile boolean closed;
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param keySize RSA key size in bits
+     * @param capacity maximum number of pre-generated key pairs
+     * @param refillThreshold depth at or below which the generators start refilling the pool
+     * @param threads number of generator threads
+     */
+    public KeyPairPool(int keySize, int capacity, int refillThreshold, int threads) {
+        this(new RsaSignatureScheme(keySize), capacity, refillThreshold, threads);
+    }
+
+    /**
+     * @param scheme scheme generating the key pairs
+     * @param capacity maximum number of pre-generated key pairs
+     * @param refillThreshold depth at or below which the generators start refilling the pool
+     * @param threads number of generator threads
+     */
+    public KeyPairPool(SignatureScheme scheme, int capacity, int refillThreshold, int threads) {
+        if (capacity < 1 || threads < 1 || refillThreshold < 0 || refillThreshold >= capacity) {
+            throw new IllegalArgumentException("Expected positive capacity and threads, and refill threshold"
+                    + " in [0, capacity)");
+        }
+        this.scheme = scheme;
+        this.refillThreshold = refillThreshold;
+        this.pool = new ArrayBlockingQueue<>(capacity);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.generators = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "key-pair-generator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            generators.execute(this::generateLoop);
+        }
+    }
+
+    /** @return a pre-generated key pair, or a freshly generated one if the pool is empty */
+    public KeyPair take() {
+        KeyPair keyPair = pool.poll();
+        if (pool.size() <= refillThreshold) {
+            requestRefill();
+        }
+        if (keyPair != null) {
+            served.increment();
+            return keyPair;
+        }
+        misses.increment();
+        return generate();
+    }
+
+    public int getKeySize() {
+        return scheme.getKeySize();
+    }
+
+    public SignatureScheme getScheme() {
+        return scheme;
+    }
+
+    /** @return number of key pairs ready in the pool */
+    public int getDepth() {
+        return pool.size();
+    }
+
+    /** @return number of key pairs generated, in the background and on callers' threads */
+    public long getGeneratedCount() {
+        return generated.sum();
+    }
+
+    /** @return number of {@link #take()} calls served from the pool */
+    public long getServedCount() {
+        return served.sum();
+    }
+
+    /** @return number of {@link #take()} calls which found the pool empty */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** @return key pairs generated per second since the pool was created */
+    public double getGenerationRate() {
+        return generated.sum() * NANOS_PER_SECOND / Math.max(1, System.nanoTime() - startNanos);
+    }
+
+    /** @return average time of generating a single key pair, in milliseconds */
+    public double getAverageGenerationMillis() {
+        long count = generated.sum();
+        return count == 0 ? 0 : generationNanos.sum() / NANOS_PER_MILLI / count;
+    }
+
+    /** Stops the generator threads; key pairs left in the pool can still be taken */
+    @Override
+    public void close() {
+        closed = true;
+        generators.shutdownNow();
+    }
+
+    private void generateLoop() {
+        try {
+            while (!closed) {
+                awaitRefill();
+                if (!pool.offer(generate()) || pool.remainingCapacity() == 0) {
+                    refillDone();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private KeyPair generate() {
+        long start = System.nanoTime();
+        KeyPair keyPair = scheme.generateKeyPair();
+        generationNanos.add(System.nanoTime() - start);
+        generated.increment();
+        return keyPair;
+    }
+
+    private void awaitRefill() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!refilling) {
+                refillNeeded.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requestRefill() {
+        lock.lock();
+        try {
+            if (!refilling) {
+                refilling = true;
+                refillNeeded.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refillDone() {
+        lock.lock();
+        try {
+            // keys taken since the pool got full may have brought it back to the threshold
+            refilling = pool.size() <= refillThreshold;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Proof that a key is mapped to a value hash in a {@link SparseMerkleTree} with a given root
+ */
+public final class MerkleProof {
+
+    private final byte[] key;
+    private final byte[] valueHash;
+    private final List<byte[]> siblings;
+
+    /**
+     * @param key proven key
+     * @param valueHash hash of the value mapped to {@code key}
+     * @param siblings hashes of the siblings on the path from the root down to the leaf
+     */
+    public MerkleProof(byte[] key, byte[] valueHash, List<byte[]> siblings) {
+        if (key.length != SparseMerkleTree.HASH_LENGTH
+                || siblings.size() > SparseMerkleTree.HASH_LENGTH * Byte.SIZE) {
+            throw new IllegalArgumentException("Expected key of " + SparseMerkleTree.HASH_LENGTH
+                    + " bytes and at most one sibling per key bit");
+        }
+        this.key = key.clone();
+        this.valueHash = valueHash.clone();
+        List<byte[]> copy = new ArrayList<>(siblings.size());
+        for (byte[] sibling : siblings) {
+            copy.add(sibling.clone());
+        }
+        this.siblings = Collections.unmodifiableList(copy);
+    }
+
+    public byte[] getKey() {
+        return key.clone();
+    }
+
+    public byte[] getValueHash() {
+        return valueHash.clone();
+    }
+
+    /** @return sibling hashes from the root down, their count is the depth of the leaf */
+    public List<byte[]> getSiblings() {
+        return siblings;
+    }
+
+    /** @return root of the tree this proof was taken from, recomputed from the leaf up */
+    public byte[] computeRoot() {
+        byte[] hash = SparseMerkleTree.leafHash(key, valueHash);
+        for (int depth = siblings.size() - 1; depth >= 0; depth--) {
+            byte[] sibling = siblings.get(depth);
+            hash = SparseMerkleTree.bit(key, depth) == 0
+                    ? SparseMerkleTree.branchHash(hash, sibling)
+                    : SparseMerkleTree.branchHash(sibling, hash);
+        }
+        return hash;
+    }
+
+    /** @return true if this proof leads to {@code root} */
+    public boolean verify(byte[] root) {
+        return MessageDigest.isEqual(computeRoot(), root);
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable binary Merkle tree over an ordered list of hashes.
+ *
+ * <p>Leaves hash to {@code SHA-256(0x00 || hash)} and parents to {@code SHA-256(0x01 || left || right)};
+ * the last node of a level with an odd number of nodes is promoted to the next level unchanged. The
+ * root of an empty tree is 32 zero bytes. Levels with at least {@value #PARALLEL_THRESHOLD} nodes
+ * are hashed in parallel. All levels are kept, so inclusion proofs are read off without hashing.
+ */
+public final class MerkleTree {
+
+    /** Minimal number of nodes of a level worth hashing in parallel */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    private final byte[][][] levels;
+
+    private MerkleTree(byte[][][] levels) {
+        this.levels = levels;
+    }
+
+    /** Builds the tree over {@code hashes}, in order */
+    public static MerkleTree of(List<byte[]> hashes) {
+        int height = 1;
+        for (int count = hashes.size(); count > 1; count = (count + 1) / 2) {
+            height++;
+        }
+        byte[][][] levels = new byte[height][][];
+
+        byte[][] leaves = new byte[hashes.size()][];
+        range(leaves.length).forEach(i -> leaves[i] = leafHash(hashes.get(i)));
+        levels[0] = leaves;
+
+        for (int level = 1; level < height; level++) {
+            byte[][] children = levels[level - 1];
+            byte[][] parents = new byte[(children.length + 1) / 2][];
+            range(parents.length).forEach(i -> parents[i] = 2 * i + 1 < children.length
+                    ? SparseMerkleTree.branchHash(children[2 * i], children[2 * i + 1])
+                    : children[2 * i]);
+            levels[level] = parents;
+        }
+        return new MerkleTree(levels);
+    }
+
+    /** @return root hash of the tree */
+    public byte[] getRoot() {
+        byte[][] top = levels[levels.length - 1];
+        return top.length == 0 ? SparseMerkleTree.EMPTY_HASH.clone() : top[0].clone();
+    }
+
+    /** @return number of leaves */
+    public int size() {
+        return levels[0].length;
+    }
+
+    /** @return proof that the hash at {@code index} is a leaf of this tree */
+    public InclusionProof prove(int index, byte[] hash) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Leaf " + index + " of " + size());
+        }
+        byte[][] siblings = new byte[levels.length - 1][];
+        int count = 0;
+        int position = index;
+        for (int level = 0; level < levels.length - 1; level++) {
+            int sibling = position ^ 1;
+            if (sibling < levels[level].length) {
+                siblings[count++] = levels[level][sibling];
+            }
+            position >>>= 1;
+        }
+        byte[][] path = new byte[count][];
+        System.arraycopy(siblings, 0, path, 0, count);
+        return new InclusionProof(hash, index, size(), path);
+    }
+
+    static byte[] leafHash(byte[] hash) {
+        return HashCalculcator.calculateSHA256(SparseMerkleTree.LEAF_PREFIX, hash);
+    }
+
+    private static IntStream range(int count) {
+        IntStream range = IntStream.range(0, count);
+        return count >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+}
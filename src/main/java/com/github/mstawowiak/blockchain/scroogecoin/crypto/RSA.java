@@ -3,6 +3,7 @@ package com.github.mstawowiak.blockchain.scroogecoin.crypto;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 
 public final class RSA {
 
@@ -13,9 +14,17 @@ public final class RSA {
     }
 
     public static KeyPair generateRSA(int rsaKeySize) {
+        return generateRSA(rsaKeySize, new SecureRandom());
+    }
+
+    /**
+     * Generates key pair using given source of randomness, e.g. a seeded {@code SHA1PRNG} to get
+     * reproducible keys
+     */
+    public static KeyPair generateRSA(int rsaKeySize, SecureRandom random) {
         try {
             KeyPairGenerator keyGen = KeyPairGenerator.getInstance(RSA);
-            keyGen.initialize(rsaKeySize);
+            keyGen.initialize(rsaKeySize, random);
 
             return keyGen.genKeyPair();
         } catch (NoSuchAlgorithmException ex) {
@@ -0,0 +1,45 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+
+/**
+ * {@code SHA256withRSA} signatures, the original scheme of the ledger
+ */
+public final class RsaSignatureScheme extends JcaSignatureScheme {
+
+    public static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    public static final int DEFAULT_KEY_SIZE = 2048;
+
+    private final int keySize;
+
+    public RsaSignatureScheme() {
+        this(DEFAULT_KEY_SIZE);
+    }
+
+    /** @param keySize size of generated keys, in bits; keys of any size are verified */
+    public RsaSignatureScheme(int keySize) {
+        super(SIGNATURE_ALGORITHM);
+        this.keySize = keySize;
+    }
+
+    @Override
+    public String getKeyAlgorithm() {
+        return RSA.RSA;
+    }
+
+    @Override
+    public int getKeySize() {
+        return keySize;
+    }
+
+    @Override
+    public KeyPair generateKeyPair() {
+        return RSA.generateRSA(keySize);
+    }
+
+    @Override
+    public KeyPair generateKeyPair(SecureRandom random) {
+        return RSA.generateRSA(keySize, random);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+
+/**
+ * Digital signature algorithm together with its key generation. Schemes are looked up by the
+ * algorithm of a key through {@link SignatureSchemes}, so addresses of different schemes coexist
+ * in one ledger.
+ */
+public interface SignatureScheme {
+
+    /** @return name of the scheme, e.g. {@code SHA256withRSA} */
+    String getName();
+
+    /** @return algorithm of the keys of this scheme, as returned by {@link java.security.Key#getAlgorithm()} */
+    String getKeyAlgorithm();
+
+    /** @return key size in bits */
+    int getKeySize();
+
+    KeyPair generateKeyPair();
+
+    KeyPair generateKeyPair(SecureRandom random);
+
+    /** @return signature of {@code message} under {@code privateKey} */
+    byte[] sign(PrivateKey privateKey, byte[] message);
+
+    /** @return true if {@code signature} is a valid signature of {@code message} under {@code publicKey} */
+    boolean verify(PublicKey publicKey, byte[] message, byte[] signature);
+
+    /** @return verifier of signatures under {@code publicKey}, for use by a single thread */
+    default SignatureVerifier newVerifier(PublicKey publicKey) {
+        return (message, signature) -> verify(publicKey, message, signature);
+    }
+}
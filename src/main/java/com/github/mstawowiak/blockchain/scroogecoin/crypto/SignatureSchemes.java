@@ -0,0 +1,47 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link SignatureScheme}s by key algorithm. RSA and ECDSA over P-256 are registered
+ * by default.
+ */
+public final class SignatureSchemes {
+
+    public static final SignatureScheme RSA = new RsaSignatureScheme();
+    public static final SignatureScheme ECDSA_P256 = new EcdsaSignatureScheme();
+
+    private static final Map<String, SignatureScheme> BY_KEY_ALGORITHM = new ConcurrentHashMap<>();
+
+    static {
+        register(RSA);
+        register(ECDSA_P256);
+    }
+
+    /** Registers {@code scheme} for keys of its algorithm, replacing the previously registered one */
+    public static void register(SignatureScheme scheme) {
+        BY_KEY_ALGORITHM.put(scheme.getKeyAlgorithm(), scheme);
+    }
+
+    /**
+     * @return scheme of {@code key}
+     * @throws IllegalArgumentException if no scheme is registered for the algorithm of {@code key}
+     */
+    public static SignatureScheme forKey(Key key) {
+        SignatureScheme scheme = BY_KEY_ALGORITHM.get(key.getAlgorithm());
+        if (scheme == null) {
+            throw new IllegalArgumentException("No signature scheme registered for " + key.getAlgorithm() + " keys");
+        }
+        return scheme;
+    }
+
+    /** @return true if a scheme is registered for the algorithm of {@code key} */
+    public static boolean isSupported(Key key) {
+        return BY_KEY_ALGORITHM.containsKey(key.getAlgorithm());
+    }
+
+    private SignatureSchemes() {
+    }
+}
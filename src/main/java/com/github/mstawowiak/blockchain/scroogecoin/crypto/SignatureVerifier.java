@@ -0,0 +1,12 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+/**
+ * Verifier bound to one public key by {@link SignatureScheme#newVerifier(java.security.PublicKey)},
+ * so that checking many signatures of the same key initializes the key once. Not thread safe.
+ */
+@FunctionalInterface
+public interface SignatureVerifier {
+
+    /** @return true if {@code signature} is a valid signature of {@code message} under the bound key */
+    boolean verify(byte[] message, byte[] signature);
+}
@@ -0,0 +1,195 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable compact sparse Merkle tree over 256-bit keys.
+ *
+ * <p>Leaves hash to {@code SHA-256(0x00 || key || valueHash)} and branches to
+ * {@code SHA-256(0x01 || left || right)}, an empty subtree hashes to 32 zero bytes and a subtree
+ * holding a single leaf collapses to that leaf. The root therefore depends only on the stored
+ * entries, not on the order they were added in. Updates copy the path to the changed leaf, so they
+ * hash O(log n) nodes and never affect other versions of the tree.
+ */
+public final class SparseMerkleTree {
+
+    /** Length of keys and hashes, in bytes */
+    public static final int HASH_LENGTH = 32;
+
+    static final byte[] LEAF_PREFIX = {0};
+    static final byte[] BRANCH_PREFIX = {1};
+    static final byte[] EMPTY_HASH = new byte[HASH_LENGTH];
+
+    private static final SparseMerkleTree EMPTY = new SparseMerkleTree(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private SparseMerkleTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static SparseMerkleTree empty() {
+        return EMPTY;
+    }
+
+    /** @return tree mapping {@code key} to {@code valueHash}, replacing any previous mapping */
+    public SparseMerkleTree put(byte[] key, byte[] valueHash) {
+        checkLength(key);
+        Leaf leaf = new Leaf(key.clone(), valueHash.clone());
+        boolean replaced = find(key) != null;
+        return new SparseMerkleTree(insert(root, leaf, 0), replaced ? size : size + 1);
+    }
+
+    /** @return tree without the mapping of {@code key}, or this tree if there is none */
+    public SparseMerkleTree remove(byte[] key) {
+        checkLength(key);
+        if (find(key) == null) {
+            return this;
+        }
+        return new SparseMerkleTree(delete(root, key, 0), size - 1);
+    }
+
+    /** @return root hash of the tree */
+    public byte[] getRoot() {
+        return hashOf(root).clone();
+    }
+
+    /** @return number of leaves */
+    public int size() {
+        return size;
+    }
+
+    /** @return proof that {@code key} is in the tree, or null if it is not */
+    public MerkleProof prove(byte[] key) {
+        checkLength(key);
+        List<byte[]> siblings = new ArrayList<>();
+        Node node = root;
+        int depth = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (bit(key, depth) == 0) {
+                siblings.add(hashOf(branch.right));
+                node = branch.left;
+            } else {
+                siblings.add(hashOf(branch.left));
+                node = branch.right;
+            }
+            depth++;
+        }
+        if (node == null || !Arrays.equals(((Leaf) node).key, key)) {
+            return null;
+        }
+        return new MerkleProof(key, ((Leaf) node).valueHash, siblings);
+    }
+
+    static int bit(byte[] key, int depth) {
+        return (key[depth >>> 3] >>> (7 - (depth & 7))) & 1;
+    }
+
+    static byte[] leafHash(byte[] key, byte[] valueHash) {
+        return HashCalculcator.calculateSHA256(LEAF_PREFIX, key, valueHash);
+    }
+
+    static byte[] branchHash(byte[] left, byte[] right) {
+        return HashCalculcator.calculateSHA256(BRANCH_PREFIX, left, right);
+    }
+
+    private Leaf find(byte[] key) {
+        Node node = root;
+        int depth = 0;
+        while (node instanceof Branch) {
+            node = bit(key, depth++) == 0 ? ((Branch) node).left : ((Branch) node).right;
+        }
+        return node != null && Arrays.equals(((Leaf) node).key, key) ? (Leaf) node : null;
+    }
+
+    private static Node insert(Node node, Leaf leaf, int depth) {
+        if (node == null) {
+            return leaf;
+        }
+        if (node instanceof Leaf) {
+            Leaf existing = (Leaf) node;
+            return Arrays.equals(existing.key, leaf.key) ? leaf : split(existing, leaf, depth);
+        }
+        Branch branch = (Branch) node;
+        return bit(leaf.key, depth) == 0
+                ? new Branch(insert(branch.left, leaf, depth + 1), branch.right)
+                : new Branch(branch.left, insert(branch.right, leaf, depth + 1));
+    }
+
+    /** Builds the subtree of two leaves, with a branch at every depth their keys still agree on */
+    private static Node split(Leaf first, Leaf second, int depth) {
+        int firstBit = bit(first.key, depth);
+        if (firstBit != bit(second.key, depth)) {
+            return firstBit == 0 ? new Branch(first, second) : new Branch(second, first);
+        }
+        Node child = split(first, second, depth + 1);
+        return firstBit == 0 ? new Branch(child, null) : new Branch(null, child);
+    }
+
+    private static Node delete(Node node, byte[] key, int depth) {
+        if (node instanceof Leaf) {
+            return null;
+        }
+        Branch branch = (Branch) node;
+        Node left = branch.left;
+        Node right = branch.right;
+        if (bit(key, depth) == 0) {
+            left = delete(left, key, depth + 1);
+        } else {
+            right = delete(right, key, depth + 1);
+        }
+        // a subtree left with a single leaf collapses to it
+        if (left == null && (right == null || right instanceof Leaf)) {
+            return right;
+        }
+        if (right == null && left instanceof Leaf) {
+            return left;
+        }
+        return new Branch(left, right);
+    }
+
+    private static byte[] hashOf(Node node) {
+        return node == null ? EMPTY_HASH : node.hash;
+    }
+
+    private static void checkLength(byte[] key) {
+        if (key.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Expected key of " + HASH_LENGTH + " bytes, got " + key.length);
+        }
+    }
+
+    private abstract static class Node {
+        final byte[] hash;
+
+        Node(byte[] hash) {
+            this.hash = hash;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final byte[] key;
+        final byte[] valueHash;
+
+        Leaf(byte[] key, byte[] valueHash) {
+            super(leafHash(key, valueHash));
+            this.key = key;
+            this.valueHash = valueHash;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(branchHash(hashOf(left), hashOf(right)));
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
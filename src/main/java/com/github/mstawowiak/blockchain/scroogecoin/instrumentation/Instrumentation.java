@@ -0,0 +1,208 @@
+package com.github.mstawowiak.blockchain.scroogecoin.instrumentation;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime switchable instrumentation of the ledger's hot paths.
+ *
+ * <p>Every {@link Probe} is disabled unless listed in the {@value #PROPERTY} system property (comma
+ * separated probe names, or {@code all}; unknown names are ignored) or enabled through
+ * {@link #enable(Probe...)}. A disabled probe costs one volatile read: {@link #start(Probe)}
+ * returns {@link #NOT_STARTED} and the matching {@code record} call returns at once. Enabled probes
+ * update in-process timers and counters and, when the JVM provides {@code jdk.jfr}, emit Flight
+ * Recorder events of the {@code ScroogeCoin} category.
+ */
+public final class Instrumentation {
+
+    /** System property listing the probes enabled at startup */
+    public static final String PROPERTY = "scroogecoin.instrumentation";
+
+    /** Start time returned for disabled probes */
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    public static final String EPOCH_TIMER = "epoch";
+    public static final String SIGNATURE_TIMER = "signature";
+    public static final String RULE_TIMER_PREFIX = "rule.";
+
+    public static final String EPOCH_PROPOSED = "epoch.proposed";
+    public static final String EPOCH_ACCEPTED = "epoch.accepted";
+    public static final String EPOCH_REJECTED = "epoch.rejected";
+    public static final String SIGNATURE_INVALID = "signature.invalid";
+    public static final String POOL_HITS = "pool.hits";
+    public static final String POOL_MISSES = "pool.misses";
+    public static final String POOL_RESIZES = "pool.resizes";
+
+    private static final JfrEventType EPOCH_EVENT = JfrEventType.define("scroogecoin.Epoch", "Epoch",
+            new String[]{"durationNanos", "proposed", "accepted", "rejected"},
+            new Class<?>[]{long.class, int.class, int.class, int.class});
+    private static final JfrEventType RULE_EVENT = JfrEventType.define("scroogecoin.ValidationRule",
+            "Validation Rule",
+            new String[]{"rule", "durationNanos", "passed"},
+            new Class<?>[]{String.class, long.class, boolean.class});
+    private static final JfrEventType SIGNATURE_EVENT = JfrEventType.define("scroogecoin.SignatureVerification",
+            "Signature Verification",
+            new String[]{"durationNanos", "valid"},
+            new Class<?>[]{long.class, boolean.class});
+    private static final JfrEventType POOL_EVENT = JfrEventType.define("scroogecoin.UTXOPool", "UTXO Pool",
+            new String[]{"operation", "size", "capacity"},
+            new Class<?>[]{String.class, int.class, int.class});
+
+    private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private static volatile int enabledProbes = parseProbes(System.getProperty(PROPERTY, ""));
+    private static volatile int lastPoolSize;
+
+    private Instrumentation() {
+    }
+
+    public static void enable(Probe... probes) {
+        synchronized (Instrumentation.class) {
+            for (Probe probe : probes) {
+                enabledProbes |= probe.mask();
+            }
+        }
+    }
+
+    public static void disable(Probe... probes) {
+        synchronized (Instrumentation.class) {
+            for (Probe probe : probes) {
+                enabledProbes &= ~probe.mask();
+            }
+        }
+    }
+
+    public static boolean isEnabled(Probe probe) {
+        return (enabledProbes & probe.mask()) != 0;
+    }
+
+    /** @return true if enabled probes also emit Flight Recorder events */
+    public static boolean isJfrAvailable() {
+        return JfrEventType.isApiAvailable() && EPOCH_EVENT.isDefined();
+    }
+
+    /** @return start time to pass to the matching {@code record} call, or {@link #NOT_STARTED} */
+    public static long start(Probe probe) {
+        return isEnabled(probe) ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /** Records an epoch started at {@code start} which accepted {@code accepted} of {@code proposed} */
+    public static void recordEpoch(long start, int proposed, int accepted) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        timer(EPOCH_TIMER).record(nanos);
+        counter(EPOCH_PROPOSED).add(proposed);
+        counter(EPOCH_ACCEPTED).add(accepted);
+        counter(EPOCH_REJECTED).add(proposed - accepted);
+        EPOCH_EVENT.commit(nanos, proposed, accepted, proposed - accepted);
+    }
+
+    /** Records a check of validation {@code rule} started at {@code start} */
+    public static void recordRule(String rule, long start, boolean passed) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        timer(RULE_TIMER_PREFIX + rule).record(nanos);
+        RULE_EVENT.commit(rule, nanos, passed);
+    }
+
+    /** Records a signature verification started at {@code start} */
+    public static void recordSignature(long start, boolean valid) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        timer(SIGNATURE_TIMER).record(nanos);
+        if (!valid) {
+            counter(SIGNATURE_INVALID).increment();
+        }
+        SIGNATURE_EVENT.commit(nanos, valid);
+    }
+
+    /** Records a lookup in a UTXO pool */
+    public static void recordPoolProbe(boolean hit) {
+        if (isEnabled(Probe.UTXO_POOL)) {
+            counter(hit ? POOL_HITS : POOL_MISSES).increment();
+        }
+    }
+
+    /**
+     * Records the size of a UTXO pool after a bulk change. Callers check {@link Probe#UTXO_POOL} is
+     * enabled before computing the size.
+     */
+    public static void recordPoolSize(int size) {
+        if (isEnabled(Probe.UTXO_POOL)) {
+            lastPoolSize = size;
+            POOL_EVENT.commit("size", size, 0);
+        }
+    }
+
+    /** Records the growth of the table of a pool's store to {@code capacity} buckets */
+    public static void recordPoolResize(int size, int capacity) {
+        if (isEnabled(Probe.UTXO_POOL)) {
+            counter(POOL_RESIZES).increment();
+            POOL_EVENT.commit("resize", size, capacity);
+        }
+    }
+
+    /** @return timer of {@code name}, created empty if nothing was recorded under it yet */
+    public static Timer getTimer(String name) {
+        return timer(name);
+    }
+
+    /** @return value of counter {@code name} */
+    public static long getCount(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /** @return a snapshot of all counters, by name */
+    public static Map<String, Long> getCounters() {
+        Map<String, Long> counters = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> counters.put(name, counter.sum()));
+        return counters;
+    }
+
+    /** @return pool size recorded last */
+    public static int getLastPoolSize() {
+        return lastPoolSize;
+    }
+
+    /** Clears all timers and counters; enabled probes stay enabled */
+    public static void reset() {
+        TIMERS.values().forEach(Timer::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+        lastPoolSize = 0;
+    }
+
+    private static Timer timer(String name) {
+        Timer timer = TIMERS.get(name);
+        return timer != null ? timer : TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    private static LongAdder counter(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter != null ? counter : COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    private static int parseProbes(String names) {
+        int mask = 0;
+        for (String name : names.split(",")) {
+            String trimmed = name.trim().toUpperCase(Locale.ROOT);
+            for (Probe probe : Probe.values()) {
+                if ("ALL".equals(trimmed) || probe.name().equals(trimmed)) {
+                    mask |= probe.mask();
+                }
+            }
+        }
+        return mask;
+    }
+}
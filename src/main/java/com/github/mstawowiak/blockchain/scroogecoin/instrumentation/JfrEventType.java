@@ -0,0 +1,115 @@
+package com.github.mstawowiak.blockchain.scroogecoin.instrumentation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Java Flight Recorder event type defined at runtime through {@code jdk.jfr.EventFactory}.
+ *
+ * <p>The sources target Java 8, where {@code jdk.jfr} may be missing, so the API is reached by
+ * reflection. When it is missing or the type cannot be defined, committing is a no-op and only the
+ * counters of {@link Instrumentation} are updated.
+ */
+final class JfrEventType {
+
+    private static final Api API = Api.load();
+
+    private final Object factory;
+
+    private JfrEventType(Object factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param name event name, as shown by JFR tools
+     * @param label human readable name
+     * @param fieldNames names of the event fields, in the order values are passed to {@link #commit}
+     * @param fieldTypes types of the event fields, primitives or String
+     */
+    static JfrEventType define(String name, String label, String[] fieldNames, Class<?>[] fieldTypes) {
+        if (API == null) {
+            return new JfrEventType(null);
+        }
+        try {
+            List<Object> annotations = Arrays.asList(
+                    API.annotationElement.newInstance(API.nameAnnotation, name),
+                    API.annotationElement.newInstance(API.labelAnnotation, label),
+                    API.annotationElement.newInstance(API.categoryAnnotation, new String[]{"ScroogeCoin"}));
+            List<Object> fields = new ArrayList<>(fieldNames.length);
+            for (int i = 0; i < fieldNames.length; i++) {
+                fields.add(API.valueDescriptor.newInstance(fieldTypes[i], fieldNames[i]));
+            }
+            return new JfrEventType(API.create.invoke(null, annotations, fields));
+        } catch (ReflectiveOperationException | IllegalArgumentException ex) {
+            return new JfrEventType(null);
+        }
+    }
+
+    static boolean isApiAvailable() {
+        return API != null;
+    }
+
+    boolean isDefined() {
+        return factory != null;
+    }
+
+    /** Emits an event with {@code values} of its fields, if JFR is recording it */
+    void commit(Object... values) {
+        if (factory == null) {
+            return;
+        }
+        try {
+            Object event = API.newEvent.invoke(factory);
+            if (!(Boolean) API.isEnabled.invoke(event)) {
+                return;
+            }
+            for (int i = 0; i < values.length; i++) {
+                API.set.invoke(event, i, values[i]);
+            }
+            API.commit.invoke(event);
+        } catch (ReflectiveOperationException | IllegalArgumentException ex) { //NOPMD - EmptyCatchBlock
+            // instrumentation never fails the instrumented operation
+        }
+    }
+
+    /** Reflective handles of the {@code jdk.jfr} API */
+    private static final class Api {
+        private Constructor<?> annotationElement;
+        private Constructor<?> valueDescriptor;
+        private Class<? extends Annotation> nameAnnotation;
+        private Class<? extends Annotation> labelAnnotation;
+        private Class<? extends Annotation> categoryAnnotation;
+        private Method create;
+        private Method newEvent;
+        private Method isEnabled;
+        private Method set;
+        private Method commit;
+
+        private static Api load() {
+            try {
+                Api api = new Api();
+                api.annotationElement = Class.forName("jdk.jfr.AnnotationElement")
+                        .getConstructor(Class.class, Object.class);
+                api.valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor")
+                        .getConstructor(Class.class, String.class);
+                api.nameAnnotation = Class.forName("jdk.jfr.Name").asSubclass(Annotation.class);
+                api.labelAnnotation = Class.forName("jdk.jfr.Label").asSubclass(Annotation.class);
+                api.categoryAnnotation = Class.forName("jdk.jfr.Category").asSubclass(Annotation.class);
+                Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+                api.create = eventFactory.getMethod("create", List.class, List.class);
+                api.newEvent = eventFactory.getMethod("newEvent");
+                Class<?> event = Class.forName("jdk.jfr.Event");
+                api.isEnabled = event.getMethod("isEnabled");
+                api.set = event.getMethod("set", int.class, Object.class);
+                api.commit = event.getMethod("commit");
+                return api;
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.mstawowiak.blockchain.scroogecoin.instrumentation;
+
+/**
+ * Instrumented parts of the ledger, each toggled separately through {@link Instrumentation}
+ */
+public enum Probe {
+
+    /** Duration and transaction counts of {@code TxHandler.handleTxs} */
+    EPOCH,
+    /** Duration and outcome of each {@code TxValidator} rule */
+    VALIDATION_RULE,
+    /** Latency of {@code Crypto.verifySignature} */
+    SIGNATURE,
+    /** Size, lookups and table resizes of {@code UTXOPool} */
+    UTXO_POOL;
+
+    final int mask() {
+        return 1 << ordinal();
+    }
+}
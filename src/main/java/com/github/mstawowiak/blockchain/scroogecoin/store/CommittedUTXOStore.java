@@ -0,0 +1,150 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.MerkleProof;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.SparseMerkleTree;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decorates a store with a {@link SparseMerkleTree} commitment to its content, updated on every
+ * add and remove in O(log n) hashes.
+ *
+ * <p>Each UTXO is keyed by {@code SHA-256(txHash || index)} and its output is committed to by
+ * {@code SHA-256(value || encoded address)}. Updates are expected from a single writer; the root
+ * and proofs may be read concurrently and always describe a consistent version of the set.
+ */
+public class CommittedUTXOStore implements UTXOStore {
+
+    private static final byte[] NO_ADDRESS = new byte[0];
+
+    private final UTXOStore delegate;
+    private volatile SparseMerkleTree tree;
+
+    /** @param delegate decorated store, its current content is committed to */
+    public CommittedUTXOStore(UTXOStore delegate) {
+        this(delegate, SparseMerkleTree.empty());
+        SparseMerkleTree loaded = tree;
+        for (UTXO utxo : delegate.keys()) {
+            loaded = loaded.put(keyOf(utxo), valueHashOf(delegate.get(utxo)));
+        }
+        tree = loaded;
+    }
+
+    private CommittedUTXOStore(UTXOStore delegate, SparseMerkleTree tree) {
+        this.delegate = delegate;
+        this.tree = tree;
+    }
+
+    @Override
+    public void put(UTXO utxo, Transaction.Output txOut) {
+        delegate.put(utxo, txOut);
+        tree = tree.put(keyOf(utxo), valueHashOf(txOut));
+    }
+
+    @Override
+    public void remove(UTXO utxo) {
+        delegate.remove(utxo);
+        tree = tree.remove(keyOf(utxo));
+    }
+
+    @Override
+    public Transaction.Output get(UTXO utxo) {
+        return delegate.get(utxo);
+    }
+
+    @Override
+    public boolean contains(UTXO utxo) {
+        return delegate.contains(utxo);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public List<UTXO> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public void putAll(Map<UTXO, Transaction.Output> entries) {
+        delegate.putAll(entries);
+        SparseMerkleTree updated = tree;
+        for (Map.Entry<UTXO, Transaction.Output> entry : entries.entrySet()) {
+            updated = updated.put(keyOf(entry.getKey()), valueHashOf(entry.getValue()));
+        }
+        tree = updated;
+    }
+
+    @Override
+    public void removeAll(Collection<UTXO> utxos) {
+        delegate.removeAll(utxos);
+        SparseMerkleTree updated = tree;
+        for (UTXO utxo : utxos) {
+            updated = updated.remove(keyOf(utxo));
+        }
+        tree = updated;
+    }
+
+    @Override
+    public void prefetch(Collection<UTXO> utxos) {
+        delegate.prefetch(utxos);
+    }
+
+    /** Copies the decorated store; the commitment is immutable, so it is shared until either changes */
+    @Override
+    public UTXOStore copy() {
+        return new CommittedUTXOStore(delegate.copy(), tree);
+    }
+
+    @Override
+    public <T extends UTXOStore> T unwrap(Class<T> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        return delegate.unwrap(type);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /** @return root hash committing to the current content of the store */
+    public byte[] getRoot() {
+        return tree.getRoot();
+    }
+
+    /** @return proof that {@code utxo} is in the store with its current output, or null if absent */
+    public MerkleProof prove(UTXO utxo) {
+        return tree.prove(keyOf(utxo));
+    }
+
+    /**
+     * @return true if {@code proof} shows that {@code utxo} maps to {@code txOut} in a store
+     * committed to by {@code root}
+     */
+    public static boolean verify(byte[] root, UTXO utxo, Transaction.Output txOut, MerkleProof proof) {
+        return MessageDigest.isEqual(proof.getKey(), keyOf(utxo))
+                && MessageDigest.isEqual(proof.getValueHash(), valueHashOf(txOut))
+                && proof.verify(root);
+    }
+
+    static byte[] keyOf(UTXO utxo) {
+        return HashCalculcator.calculateSHA256(utxo.getTxHash(),
+                ByteBuffer.allocate(Integer.BYTES).putInt(utxo.getIndex()).array());
+    }
+
+    static byte[] valueHashOf(Transaction.Output txOut) {
+        byte[] address = txOut.address == null ? NO_ADDRESS : txOut.address.getEncoded();
+        return HashCalculcator.calculateSHA256(
+                ByteBuffer.allocate(Double.BYTES).putDouble(txOut.value).array(), address);
+    }
+}
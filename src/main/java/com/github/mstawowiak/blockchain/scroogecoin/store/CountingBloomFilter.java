@@ -0,0 +1,139 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Counting Bloom filter over UTXOs. Each slot is an 8-bit counter, four of them packed into an
+ * int; saturated counters are never decremented, so removals can not introduce false negatives.
+ */
+public final class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = Integer.SIZE / Byte.SIZE;
+    private static final int COUNTER_MASK = 0xFF;
+    private static final int SATURATED = COUNTER_MASK;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SECOND_HASH_SEED = 0x9e3779b97f4a7c15L;
+
+    private final AtomicIntegerArray words;
+    private final int slots;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions number of UTXOs the filter is sized for
+     * @param falsePositiveRate desired false positive rate at {@code expectedInsertions}
+     */
+    public CountingBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and false positive rate in (0, 1)");
+        }
+        double ln2 = Math.log(2);
+        long optimalSlots = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.slots = (int) Math.min(Integer.MAX_VALUE - COUNTERS_PER_WORD, Math.max(COUNTERS_PER_WORD, optimalSlots));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) slots / expectedInsertions * ln2));
+        this.words = new AtomicIntegerArray((slots + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+    }
+
+    private CountingBloomFilter(CountingBloomFilter filter) {
+        this.slots = filter.slots;
+        this.hashFunctions = filter.hashFunctions;
+        this.words = new AtomicIntegerArray(filter.words.length());
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, filter.words.get(i));
+        }
+    }
+
+    /** Records {@code utxo} as present */
+    public void add(UTXO utxo) {
+        long hash1 = firstHash(utxo);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(slot(hash1, hash2, i), 1);
+        }
+    }
+
+    /** Forgets one earlier {@link #add(UTXO)} of {@code utxo}, which must have been added */
+    public void remove(UTXO utxo) {
+        long hash1 = firstHash(utxo);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(slot(hash1, hash2, i), -1);
+        }
+    }
+
+    /** @return false if {@code utxo} is definitely absent, true if it may be present */
+    public boolean mightContain(UTXO utxo) {
+        long hash1 = firstHash(utxo);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            if (counter(slot(hash1, hash2, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return false positive rate expected for {@code insertions} distinct elements */
+    public double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) hashFunctions * insertions / slots), hashFunctions);
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    /** @return an independent filter with the same counters */
+    public CountingBloomFilter copy() {
+        return new CountingBloomFilter(this);
+    }
+
+    private int counter(int slot) {
+        int shift = (slot % COUNTERS_PER_WORD) * Byte.SIZE;
+        return (words.get(slot / COUNTERS_PER_WORD) >>> shift) & COUNTER_MASK;
+    }
+
+    private void update(int slot, int delta) {
+        int wordIndex = slot / COUNTERS_PER_WORD;
+        int shift = (slot % COUNTERS_PER_WORD) * Byte.SIZE;
+        while (true) {
+            int word = words.get(wordIndex);
+            int counter = (word >>> shift) & COUNTER_MASK;
+            if (counter == SATURATED || counter + delta < 0) {
+                return;
+            }
+            if (words.compareAndSet(wordIndex, word, word + (delta << shift))) {
+                return;
+            }
+        }
+    }
+
+    private int slot(long hash1, long hash2, int i) {
+        return (int) Long.remainderUnsigned(hash1 + i * hash2, slots);
+    }
+
+    private static long firstHash(UTXO utxo) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : utxo.getTxHash()) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return mix(hash ^ utxo.getIndex());
+    }
+
+    private static long secondHash(long hash1) {
+        return mix(hash1 ^ SECOND_HASH_SEED) | 1;
+    }
+
+    /** Finalization step of SplitMix64 */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
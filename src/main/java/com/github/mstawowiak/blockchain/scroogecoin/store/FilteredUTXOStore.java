@@ -0,0 +1,190 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates a store with a {@link CountingBloomFilter}, so lookups of UTXOs which are definitely
+ * absent never reach the decorated store. The filter is maintained on every add and remove;
+ * updates are expected from a single writer, reads may be concurrent if the decorated store
+ * allows it.
+ */
+public class FilteredUTXOStore implements UTXOStore {
+
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private final UTXOStore delegate;
+    private final CountingBloomFilter filter;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder filteredOut = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public FilteredUTXOStore(UTXOStore delegate, int expectedSize) {
+        this(delegate, expectedSize, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * @param delegate decorated store, its current content is loaded into the filter
+     * @param expectedSize expected number of UTXOs, used to size the filter
+     * @param falsePositiveRate desired false positive rate at {@code expectedSize}
+     */
+    public FilteredUTXOStore(UTXOStore delegate, int expectedSize, double falsePositiveRate) {
+        this(delegate, new CountingBloomFilter(expectedSize, falsePositiveRate));
+        for (UTXO utxo : delegate.keys()) {
+            filter.add(utxo);
+        }
+    }
+
+    private FilteredUTXOStore(UTXOStore delegate, CountingBloomFilter filter) {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    @Override
+    public void put(UTXO utxo, Transaction.Output txOut) {
+        boolean present = isStored(utxo);
+        delegate.put(utxo, txOut);
+        if (!present) {
+            filter.add(utxo);
+        }
+    }
+
+    @Override
+    public void remove(UTXO utxo) {
+        if (isStored(utxo)) {
+            delegate.remove(utxo);
+            filter.remove(utxo);
+        }
+    }
+
+    @Override
+    public Transaction.Output get(UTXO utxo) {
+        if (!mightContain(utxo)) {
+            return null;
+        }
+        Transaction.Output output = delegate.get(utxo);
+        if (output == null) {
+            falsePositives.increment();
+        }
+        return output;
+    }
+
+    @Override
+    public boolean contains(UTXO utxo) {
+        if (!mightContain(utxo)) {
+            return false;
+        }
+        boolean present = delegate.contains(utxo);
+        if (!present) {
+            falsePositives.increment();
+        }
+        return present;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public List<UTXO> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public void putAll(Map<UTXO, Transaction.Output> entries) {
+        List<UTXO> added = new ArrayList<>(entries.size());
+        for (UTXO utxo : entries.keySet()) {
+            if (!isStored(utxo)) {
+                added.add(utxo);
+            }
+        }
+        delegate.putAll(entries);
+        for (UTXO utxo : added) {
+            filter.add(utxo);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<UTXO> utxos) {
+        List<UTXO> removed = new ArrayList<>(utxos.size());
+        for (UTXO utxo : utxos) {
+            if (isStored(utxo)) {
+                removed.add(utxo);
+            }
+        }
+        delegate.removeAll(removed);
+        for (UTXO utxo : removed) {
+            filter.remove(utxo);
+        }
+    }
+
+    @Override
+    public void prefetch(Collection<UTXO> utxos) {
+        delegate.prefetch(utxos);
+    }
+
+    @Override
+    public UTXOStore copy() {
+        return new FilteredUTXOStore(delegate.copy(), filter.copy());
+    }
+
+    @Override
+    public <T extends UTXOStore> T unwrap(Class<T> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        return delegate.unwrap(type);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /** @return number of existence probes answered */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /** @return number of probes rejected by the filter alone */
+    public long getFilteredOut() {
+        return filteredOut.sum();
+    }
+
+    /** @return number of probes which passed the filter but were absent from the store */
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    /** @return observed fraction of probes for absent UTXOs which the filter let through */
+    public double getFalsePositiveRate() {
+        long negatives = falsePositives.sum() + filteredOut.sum();
+        return negatives == 0 ? 0 : (double) falsePositives.sum() / negatives;
+    }
+
+    /** @return false positive rate the filter is expected to have at its current size */
+    public double getExpectedFalsePositiveRate() {
+        return filter.expectedFalsePositiveRate(delegate.size());
+    }
+
+    private boolean mightContain(UTXO utxo) {
+        probes.increment();
+        if (filter.mightContain(utxo)) {
+            return true;
+        }
+        filteredOut.increment();
+        return false;
+    }
+
+    /** Existence check for filter maintenance, not counted in the metrics */
+    private boolean isStored(UTXO utxo) {
+        return filter.mightContain(utxo) && delegate.contains(utxo);
+    }
+}
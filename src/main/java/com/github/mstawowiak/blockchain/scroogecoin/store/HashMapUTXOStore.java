@@ -0,0 +1,81 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.instrumentation.Instrumentation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default, single {@link HashMap} based store. Not thread-safe.
+ */
+public class HashMapUTXOStore implements UTXOStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Map<UTXO, Transaction.Output> map;
+
+    /** Table size of {@link #map}, tracked by mirroring the growth policy of {@link HashMap} */
+    private int capacity;
+
+    public HashMapUTXOStore() {
+        map = new HashMap<>();
+        capacity = DEFAULT_CAPACITY;
+    }
+
+    private HashMapUTXOStore(Map<UTXO, Transaction.Output> map) {
+        this.map = new HashMap<>(map);
+        capacity = initialCapacity(map.size());
+    }
+
+    @Override
+    public void put(UTXO utxo, Transaction.Output txOut) {
+        map.put(utxo, txOut);
+        if (map.size() > capacity * LOAD_FACTOR) {
+            capacity <<= 1;
+            Instrumentation.recordPoolResize(map.size(), capacity);
+        }
+    }
+
+    @Override
+    public void remove(UTXO utxo) {
+        map.remove(utxo);
+    }
+
+    @Override
+    public Transaction.Output get(UTXO utxo) {
+        return map.get(utxo);
+    }
+
+    @Override
+    public boolean contains(UTXO utxo) {
+        return map.containsKey(utxo);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public List<UTXO> keys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    @Override
+    public UTXOStore copy() {
+        return new HashMapUTXOStore(map);
+    }
+
+    /** @return table size {@link HashMap#HashMap(Map)} allocates for {@code size} entries */
+    private static int initialCapacity(int size) {
+        if (size == 0) {
+            return DEFAULT_CAPACITY;
+        }
+        int minimal = (int) (size / LOAD_FACTOR + 1.0f);
+        return minimal <= 1 ? 1 : Integer.highestOneBit(minimal - 1) << 1;
+    }
+}
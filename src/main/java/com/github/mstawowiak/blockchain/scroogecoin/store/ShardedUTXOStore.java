@@ -0,0 +1,291 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe store partitioning UTXOs into independently sized shards by a prefix of
+ * {@link UTXO#getTxHash()}. Each shard has its own lock. Bulk operations of at least
+ * {@value #PARALLEL_THRESHOLD} UTXOs touching several shards run in parallel, each shard on a
+ * single-threaded executor shared by the shards of the same index of all stores; smaller ones run
+ * on the calling thread.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ShardedUTXOStore implements UTXOStore {
+
+    public static final int DEFAULT_SHARD_COUNT = 16;
+
+    private static final int PREFIX_BYTES = Integer.SIZE / 8;
+    /** Fewest UTXOs of a bulk operation worth spreading over the shard executors */
+    private static final int PARALLEL_THRESHOLD = 64;
+    /** Seconds after which an idle shard executor stops its thread */
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 30;
+
+    /** Executors of the shards of each index, shared by all stores and their copies */
+    private static final List<ExecutorService> EXECUTORS = new ArrayList<>();
+
+    /** Guards the shard layout; held exclusively only while rebalancing */
+    private final ReadWriteLock layoutLock = new ReentrantReadWriteLock();
+    private Shard[] shards;
+
+    public ShardedUTXOStore() {
+        this(DEFAULT_SHARD_COUNT, 0);
+    }
+
+    /**
+     * @param shardCount number of shards
+     * @param expectedSize expected number of UTXOs, used to presize the shards
+     */
+    public ShardedUTXOStore(int shardCount, int expectedSize) {
+        this.shards = createShards(shardCount, expectedSize);
+    }
+
+    @Override
+    public void put(UTXO utxo, Transaction.Output txOut) {
+        withShard(utxo, true, map -> map.put(utxo, txOut));
+    }
+
+    @Override
+    public void remove(UTXO utxo) {
+        withShard(utxo, true, map -> map.remove(utxo));
+    }
+
+    @Override
+    public Transaction.Output get(UTXO utxo) {
+        return withShard(utxo, false, map -> map.get(utxo));
+    }
+
+    @Override
+    public boolean contains(UTXO utxo) {
+        return withShard(utxo, false, map -> map.containsKey(utxo));
+    }
+
+    @Override
+    public int size() {
+        layoutLock.readLock().lock();
+        try {
+            int size = 0;
+            for (Shard shard : shards) {
+                size += shard.read(map -> map.size());
+            }
+            return size;
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UTXO> keys() {
+        layoutLock.readLock().lock();
+        try {
+            List<UTXO> keys = new ArrayList<>();
+            for (Shard shard : shards) {
+                keys.addAll(shard.read(map -> new ArrayList<>(map.keySet())));
+            }
+            return keys;
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    /** Routes {@code entries} to their shards and stores them in parallel, one task per shard */
+    @Override
+    public void putAll(Map<UTXO, Transaction.Output> entries) {
+        inParallel(entries.keySet(), (shard, utxos) -> {
+            for (UTXO utxo : utxos) {
+                shard.map.put(utxo, entries.get(utxo));
+            }
+        });
+    }
+
+    /** Routes {@code utxos} to their shards and removes them in parallel, one task per shard */
+    @Override
+    public void removeAll(Collection<UTXO> utxos) {
+        inParallel(utxos, (shard, shardUtxos) -> {
+            for (UTXO utxo : shardUtxos) {
+                shard.map.remove(utxo);
+            }
+        });
+    }
+
+    @Override
+    public UTXOStore copy() {
+        layoutLock.readLock().lock();
+        try {
+            ShardedUTXOStore copy = new ShardedUTXOStore(shards.length, 0);
+            for (int i = 0; i < shards.length; i++) {
+                copy.shards[i].map.putAll(shards[i].read(map -> new HashMap<>(map)));
+            }
+            return copy;
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    /** @return current number of shards */
+    public int getShardCount() {
+        layoutLock.readLock().lock();
+        try {
+            return shards.length;
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    /** @return number of UTXOs held by each shard */
+    public int[] getShardSizes() {
+        layoutLock.readLock().lock();
+        try {
+            int[] sizes = new int[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                sizes[i] = shards[i].read(map -> map.size());
+            }
+            return sizes;
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Redistributes all UTXOs over {@code shardCount} new shards. Blocks every other operation
+     * until done.
+     */
+    public void rebalance(int shardCount) {
+        layoutLock.writeLock().lock();
+        try {
+            int size = 0;
+            for (Shard shard : shards) {
+                size += shard.map.size();
+            }
+            Shard[] rebalanced = createShards(shardCount, size);
+            for (Shard shard : shards) {
+                for (Map.Entry<UTXO, Transaction.Output> entry : shard.map.entrySet()) {
+                    rebalanced[shardIndex(entry.getKey(), shardCount)].map.put(entry.getKey(), entry.getValue());
+                }
+            }
+            shards = rebalanced;
+        } finally {
+            layoutLock.writeLock().unlock();
+        }
+    }
+
+    private <T> T withShard(UTXO utxo, boolean write, Function<Map<UTXO, Transaction.Output>, T> action) {
+        layoutLock.readLock().lock();
+        try {
+            Shard shard = shards[shardIndex(utxo, shards.length)];
+            Lock lock = write ? shard.lock.writeLock() : shard.lock.readLock();
+            lock.lock();
+            try {
+                return action.apply(shard.map);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    private void inParallel(Collection<UTXO> utxos, BiConsumer<Shard, List<UTXO>> action) {
+        layoutLock.readLock().lock();
+        try {
+            Map<Shard, List<UTXO>> routed = new HashMap<>();
+            for (UTXO utxo : utxos) {
+                routed.computeIfAbsent(shards[shardIndex(utxo, shards.length)], shard -> new ArrayList<>())
+                        .add(utxo);
+            }
+
+            if (routed.size() == 1 || utxos.size() < PARALLEL_THRESHOLD) {
+                routed.forEach((shard, shardUtxos) -> shard.write(() -> action.accept(shard, shardUtxos)));
+                return;
+            }
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(routed.size());
+            routed.forEach((shard, shardUtxos) -> tasks.add(CompletableFuture.runAsync(
+                    () -> shard.write(() -> action.accept(shard, shardUtxos)), shard.executor)));
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            layoutLock.readLock().unlock();
+        }
+    }
+
+    static int shardIndex(UTXO utxo, int shardCount) {
+        byte[] txHash = utxo.getTxHash();
+        int prefix = 0;
+        for (int i = 0; i < PREFIX_BYTES && i < txHash.length; i++) {
+            prefix = (prefix << Byte.SIZE) | (txHash[i] & 0xFF);
+        }
+        return Integer.remainderUnsigned(prefix, shardCount);
+    }
+
+    /** @return executor shared by the shards of {@code index}, idle threads of which time out */
+    private static ExecutorService executor(int index) {
+        synchronized (EXECUTORS) {
+            while (EXECUTORS.size() <= index) {
+                String name = "utxo-shard-" + EXECUTORS.size();
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, EXECUTOR_KEEP_ALIVE_SECONDS,
+                        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                            Thread thread = new Thread(runnable, name);
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                executor.allowCoreThreadTimeOut(true);
+                EXECUTORS.add(executor);
+            }
+            return EXECUTORS.get(index);
+        }
+    }
+
+    private static Shard[] createShards(int shardCount, int expectedSize) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive, was " + shardCount);
+        }
+        Shard[] created = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            created[i] = new Shard(i, expectedSize / shardCount);
+        }
+        return created;
+    }
+
+    private static final class Shard {
+        private final Map<UTXO, Transaction.Output> map;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ExecutorService executor;
+
+        private Shard(int index, int expectedSize) {
+            this.map = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+            this.executor = executor(index);
+        }
+
+        private <T> T read(Function<Map<UTXO, Transaction.Output>, T> query) {
+            lock.readLock().lock();
+            try {
+                return query.apply(map);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void write(Runnable update) {
+            lock.writeLock().lock();
+            try {
+                update.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.AddressRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Two-tier store: a bounded in-memory hot tier with LRU eviction on top of a cold tier kept in a
+ * local append-only file accessed through {@link FileChannel}.
+ *
+ * <p>Evicted entries are written back to the file asynchronously, by a thread shared by all
+ * stores, and stay readable from memory until the write completes. Only an index of file locations
+ * is kept on heap for the cold tier. Addresses are decoded through {@link AddressRegistry}, so a
+ * cold record paying to an address still in use elsewhere shares its key instead of parsing a new
+ * one. Space of removed cold records is reclaimed by {@link #compact()}.
+ *
+ * <p>A {@link #copy()} shares the cold tier file with its source and copies only the index and
+ * the hot tier. Each store appends its own write-backs to the shared file; the file is closed once
+ * every store sharing it is closed or has compacted into a file of its own.
+ */
+@SuppressWarnings({"PMD.DoNotUseThreads", "PMD.AvoidSynchronizedAtMethodLevel", "PMD.TooManyMethods"})
+public class TieredUTXOStore implements UTXOStore {
+
+    private static final int NULL_ADDRESS = -1;
+
+    /** Write-back thread shared by all stores, so that copies do not start threads of their own */
+    private static final ExecutorService WRITE_BACK = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "utxo-write-back");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int hotCapacity;
+
+    private final LinkedHashMap<UTXO, HotEntry> hot = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<UTXO, Transaction.Output> writeBehind = new HashMap<>();
+    private final Map<UTXO, ColdRecord> coldIndex = new HashMap<>();
+    private List<Map.Entry<UTXO, Transaction.Output>> pendingWriteBack = new ArrayList<>();
+    /** Submitted write-backs not yet reported by {@link #flush()}, failed ones included */
+    private final List<Future<?>> pendingWrites = new ArrayList<>();
+
+    private ColdFile coldFile;
+    private long garbageBytes;
+    private boolean closed;
+
+    private long hotHits;
+    private long writeBehindHits;
+    private long coldReads;
+    private long evictions;
+    private long writeBacks;
+
+    /**
+     * @param file cold tier file, created or truncated
+     * @param hotCapacity maximum number of UTXOs kept in the hot tier
+     */
+    public TieredUTXOStore(Path file, int hotCapacity) {
+        this(file, hotCapacity, false);
+    }
+
+    private TieredUTXOStore(Path file, int hotCapacity, boolean deleteOnClose) {
+        if (hotCapacity < 1) {
+            throw new IllegalArgumentException("Hot tier capacity must be positive, was " + hotCapacity);
+        }
+        this.hotCapacity = hotCapacity;
+        this.coldFile = new ColdFile(file, deleteOnClose, openChannel(file));
+    }
+
+    /** Creates a copy of {@code source}, whose lock the caller holds, sharing its cold tier file */
+    private TieredUTXOStore(TieredUTXOStore source) {
+        this.hotCapacity = source.hotCapacity;
+        this.hot.putAll(source.hot);
+        this.coldIndex.putAll(source.coldIndex);
+        this.coldFile = source.coldFile.retain();
+        // entries the source has yet to write back are written again, indexed by this store
+        source.writeBehind.forEach((utxo, output) -> {
+            writeBehind.put(utxo, output);
+            pendingWriteBack.add(new AbstractMap.SimpleImmutableEntry<>(utxo, output));
+        });
+    }
+
+    /** Creates a store whose cold tier lives in a temporary file, deleted on {@link #close()} */
+    public static TieredUTXOStore createTemporary(int hotCapacity) {
+        return new TieredUTXOStore(createTemporaryFile(), hotCapacity, true);
+    }
+
+    @Override
+    public synchronized void put(UTXO utxo, Transaction.Output txOut) {
+        putHot(utxo, txOut);
+        evictOverflow();
+        submitWriteBack();
+    }
+
+    @Override
+    public synchronized void putAll(Map<UTXO, Transaction.Output> entries) {
+        entries.forEach(this::putHot);
+        evictOverflow();
+        submitWriteBack();
+    }
+
+    @Override
+    public synchronized void remove(UTXO utxo) {
+        hot.remove(utxo);
+        writeBehind.remove(utxo);
+        dropColdRecord(utxo);
+    }
+
+    @Override
+    public synchronized Transaction.Output get(UTXO utxo) {
+        HotEntry entry = hot.get(utxo);
+        if (entry != null) {
+            hotHits++;
+            return entry.output;
+        }
+        Transaction.Output pending = writeBehind.get(utxo);
+        if (pending != null) {
+            writeBehindHits++;
+            return pending;
+        }
+        ColdRecord record = coldIndex.get(utxo);
+        if (record == null) {
+            return null;
+        }
+        coldReads++;
+        Transaction.Output output = decodeOutput(coldFile.read(record));
+        promote(utxo, output);
+        return output;
+    }
+
+    @Override
+    public synchronized boolean contains(UTXO utxo) {
+        return hot.containsKey(utxo) || writeBehind.containsKey(utxo) || coldIndex.containsKey(utxo);
+    }
+
+    @Override
+    public synchronized int size() {
+        int hotOnly = 0;
+        for (HotEntry entry : hot.values()) {
+            if (!entry.persisted) {
+                hotOnly++;
+            }
+        }
+        return hotOnly + writeBehind.size() + coldIndex.size();
+    }
+
+    @Override
+    public synchronized List<UTXO> keys() {
+        Set<UTXO> keys = new LinkedHashSet<>(hot.keySet());
+        keys.addAll(writeBehind.keySet());
+        keys.addAll(coldIndex.keySet());
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Loads the cold entries of {@code utxos} into the hot tier in a single pass over the file, in
+     * file order. Meant to be called with all inputs of an epoch before validating it.
+     */
+    @Override
+    public synchronized void prefetch(Collection<UTXO> utxos) {
+        List<Map.Entry<UTXO, ColdRecord>> toRead = new ArrayList<>();
+        for (UTXO utxo : utxos) {
+            ColdRecord record = coldIndex.get(utxo);
+            if (record != null && !hot.containsKey(utxo)) {
+                toRead.add(new AbstractMap.SimpleImmutableEntry<>(utxo, record));
+            }
+        }
+        toRead.sort((first, second) -> Long.compare(first.getValue().offset, second.getValue().offset));
+
+        int limit = Math.min(toRead.size(), hotCapacity);
+        for (Map.Entry<UTXO, ColdRecord> entry : toRead.subList(0, limit)) {
+            coldReads++;
+            promote(entry.getKey(), decodeOutput(coldFile.read(entry.getValue())));
+        }
+    }
+
+    /**
+     * @return a store sharing the cold tier file of this one; cold entries stay in the file and
+     *         only their locations are copied
+     */
+    @Override
+    public UTXOStore copy() {
+        synchronized (this) {
+            return new TieredUTXOStore(this);
+        }
+    }
+
+    /**
+     * Blocks until all submitted write-backs reached the cold tier file
+     *
+     * @throws IllegalStateException if a write-back submitted since the last flush failed
+     */
+    public void flush() {
+        List<Future<?>> writes;
+        synchronized (this) {
+            submitWriteBack();
+            writes = new ArrayList<>(pendingWrites);
+        }
+        try {
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Write-back failed", ex.getCause());
+        } finally {
+            synchronized (this) {
+                pendingWrites.removeAll(writes);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the cold tier file keeping only live records. A file shared with copies is left to
+     * them and this store moves to a temporary file of its own.
+     */
+    public void compact() {
+        flush();
+        synchronized (this) {
+            boolean shared = coldFile.isShared();
+            Path sibling = coldFile.path.resolveSibling(coldFile.path.getFileName() + ".compact");
+            Path target = shared ? createTemporaryFile() : sibling;
+            ColdFile compacted = new ColdFile(target, true, openChannel(target));
+            for (Map.Entry<UTXO, ColdRecord> entry : coldIndex.entrySet()) {
+                ByteBuffer buffer = coldFile.read(entry.getValue());
+                int length = buffer.remaining();
+                entry.setValue(new ColdRecord(compacted.append(buffer), length));
+            }
+            if (shared) {
+                coldFile.release();
+                coldFile = compacted;
+            } else {
+                coldFile = coldFile.replaceWith(compacted);
+            }
+            garbageBytes = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                if (!closed) {
+                    closed = true;
+                    coldFile.release();
+                }
+            }
+        }
+    }
+
+    /** @return fraction of reads served from memory, without touching the cold tier file */
+    public synchronized double getHitRatio() {
+        long reads = hotHits + writeBehindHits + coldReads;
+        return reads == 0 ? 0 : (double) (hotHits + writeBehindHits) / reads;
+    }
+
+    public synchronized long getHotHits() {
+        return hotHits;
+    }
+
+    public synchronized long getColdReads() {
+        return coldReads;
+    }
+
+    /** @return number of entries evicted from the hot tier */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** @return number of entries written back to the cold tier file */
+    public synchronized long getWriteBacks() {
+        return writeBacks;
+    }
+
+    /** @return bytes of the cold tier file occupied by records removed from this store */
+    public synchronized long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    public synchronized int getHotSize() {
+        return hot.size();
+    }
+
+    private void putHot(UTXO utxo, Transaction.Output txOut) {
+        hot.put(utxo, new HotEntry(txOut, false));
+        writeBehind.remove(utxo);
+        dropColdRecord(utxo);
+    }
+
+    private void promote(UTXO utxo, Transaction.Output output) {
+        hot.put(utxo, new HotEntry(output, true));
+        evictOverflow();
+        submitWriteBack();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<UTXO, HotEntry>> eldest = hot.entrySet().iterator();
+        while (hot.size() > hotCapacity) {
+            Map.Entry<UTXO, HotEntry> entry = eldest.next();
+            eldest.remove();
+            evictions++;
+            if (!entry.getValue().persisted) {
+                writeBehind.put(entry.getKey(), entry.getValue().output);
+                pendingWriteBack.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().output));
+            }
+        }
+    }
+
+    private void submitWriteBack() {
+        if (pendingWriteBack.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UTXO, Transaction.Output>> batch = pendingWriteBack;
+        pendingWriteBack = new ArrayList<>();
+        pendingWrites.removeIf(TieredUTXOStore::succeeded);
+        pendingWrites.add(WRITE_BACK.submit(() -> writeBack(batch)));
+    }
+
+    private static boolean succeeded(Future<?> write) {
+        if (!write.isDone()) {
+            return false;
+        }
+        try {
+            write.get();
+            return true;
+        } catch (ExecutionException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Runs on the write-back thread */
+    private void writeBack(List<Map.Entry<UTXO, Transaction.Output>> batch) {
+        List<byte[]> records = new ArrayList<>(batch.size());
+        int total = 0;
+        for (Map.Entry<UTXO, Transaction.Output> entry : batch) {
+            byte[] record = encodeOutput(entry.getValue());
+            records.add(record);
+            total += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        records.forEach(buffer::put);
+        buffer.flip();
+
+        synchronized (this) {
+            long offset = coldFile.append(buffer);
+            for (int i = 0; i < batch.size(); i++) {
+                UTXO utxo = batch.get(i).getKey();
+                int length = records.get(i).length;
+                if (writeBehind.get(utxo) == batch.get(i).getValue()) {
+                    writeBehind.remove(utxo);
+                    coldIndex.put(utxo, new ColdRecord(offset, length));
+                    writeBacks++;
+                } else {
+                    garbageBytes += length;
+                }
+                offset += length;
+            }
+        }
+    }
+
+    private void dropColdRecord(UTXO utxo) {
+        ColdRecord record = coldIndex.remove(utxo);
+        if (record != null) {
+            garbageBytes += record.length;
+        }
+    }
+
+    private static byte[] encodeOutput(Transaction.Output output) {
+        if (output.address == null) {
+            return ByteBuffer.allocate(Double.BYTES + Integer.BYTES)
+                    .putDouble(output.value)
+                    .putInt(NULL_ADDRESS)
+                    .array();
+        }
+        byte[] algorithm = output.address.getAlgorithm().getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = output.address.getEncoded();
+        return ByteBuffer.allocate(Double.BYTES + 2 * Integer.BYTES + algorithm.length + encoded.length)
+                .putDouble(output.value)
+                .putInt(algorithm.length).put(algorithm)
+                .putInt(encoded.length).put(encoded)
+                .array();
+    }
+
+    private static Transaction.Output decodeOutput(ByteBuffer buffer) {
+        double value = buffer.getDouble();
+        int algorithmLength = buffer.getInt();
+        if (algorithmLength == NULL_ADDRESS) {
+            return Transaction.detachedOutput(value, null);
+        }
+        byte[] algorithm = new byte[algorithmLength];
+        buffer.get(algorithm);
+        byte[] encoded = new byte[buffer.getInt()];
+        buffer.get(encoded);
+        try {
+            PublicKey address = AddressRegistry.decode(new String(algorithm, StandardCharsets.UTF_8), encoded);
+            return Transaction.detachedOutput(value, address);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Can not decode address of cold tier record", ex);
+        }
+    }
+
+    private static Path createTemporaryFile() {
+        try {
+            return Files.createTempFile("utxo-cold-", ".dat");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static FileChannel openChannel(Path path, StandardOpenOption... options) {
+        try {
+            if (options.length > 0) {
+                return FileChannel.open(path, options);
+            }
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Append-only cold tier file, shared by a store and its copies */
+    private static final class ColdFile {
+        private final Path path;
+        private final boolean deleteOnRelease;
+        private final FileChannel channel;
+        private long appendPosition;
+        private int references = 1;
+
+        private ColdFile(Path path, boolean deleteOnRelease, FileChannel channel) {
+            this.path = path;
+            this.deleteOnRelease = deleteOnRelease;
+            this.channel = channel;
+        }
+
+        private synchronized ColdFile retain() {
+            references++;
+            return this;
+        }
+
+        private synchronized boolean isShared() {
+            return references > 1;
+        }
+
+        /** @return offset at which the remaining bytes of {@code buffer} were appended */
+        private synchronized long append(ByteBuffer buffer) {
+            long start = appendPosition;
+            try {
+                while (buffer.hasRemaining()) {
+                    appendPosition += channel.write(buffer, appendPosition);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return start;
+        }
+
+        private ByteBuffer read(ColdRecord record) {
+            ByteBuffer buffer = ByteBuffer.allocate(record.length);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, record.offset + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of cold tier file " + path);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Moves {@code compacted}, not shared with anyone, over this file, which must not be shared
+         * either
+         *
+         * @return the replaced file, reopened
+         */
+        private synchronized ColdFile replaceWith(ColdFile compacted) {
+            try {
+                channel.close();
+                compacted.channel.close();
+                Files.move(compacted.path, path, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            ColdFile replaced = new ColdFile(path, deleteOnRelease,
+                    openChannel(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            replaced.appendPosition = compacted.appendPosition;
+            return replaced;
+        }
+
+        /** Closes the file once no store shares it any more */
+        private synchronized void release() {
+            if (--references > 0) {
+                return;
+            }
+            try {
+                channel.close();
+                if (deleteOnRelease) {
+                    Files.deleteIfExists(path);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static final class HotEntry {
+        private final Transaction.Output output;
+        /** true if an identical record is present in the cold tier */
+        private final boolean persisted;
+
+        private HotEntry(Transaction.Output output, boolean persisted) {
+            this.output = output;
+            this.persisted = persisted;
+        }
+    }
+
+    private static final class ColdRecord {
+        private final long offset;
+        private final int length;
+
+        private ColdRecord(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
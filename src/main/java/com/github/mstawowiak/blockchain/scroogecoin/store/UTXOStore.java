@@ -0,0 +1,68 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backing storage of {@link com.github.mstawowiak.blockchain.scroogecoin.UTXOPool}, mapping each
+ * UTXO to its corresponding transaction output
+ */
+public interface UTXOStore extends AutoCloseable {
+
+    /** Maps {@code utxo} to {@code txOut}, replacing any previous mapping */
+    void put(UTXO utxo, Transaction.Output txOut);
+
+    /** Removes the mapping for {@code utxo} if present */
+    void remove(UTXO utxo);
+
+    /** @return the output mapped to {@code utxo}, or null if there is none */
+    Transaction.Output get(UTXO utxo);
+
+    /** @return true if {@code utxo} is mapped to an output */
+    boolean contains(UTXO utxo);
+
+    /** @return number of stored UTXOs */
+    int size();
+
+    /** @return a snapshot of all stored UTXOs */
+    List<UTXO> keys();
+
+    /** @return an independent store holding the same mappings */
+    UTXOStore copy();
+
+    /** Maps every UTXO of {@code entries} to its output */
+    default void putAll(Map<UTXO, Transaction.Output> entries) {
+        entries.forEach(this::put);
+    }
+
+    /** Removes the mappings of all {@code utxos} */
+    default void removeAll(Collection<UTXO> utxos) {
+        utxos.forEach(this::remove);
+    }
+
+    /**
+     * Hints that {@code utxos} are about to be read, so a store with slower tiers can load them in
+     * one batch
+     */
+    default void prefetch(Collection<UTXO> utxos) {
+    }
+
+    /**
+     * @return this store, or the store it decorates, as an instance of {@code type}
+     * @throws IllegalArgumentException if neither is an instance of {@code type}
+     */
+    default <T extends UTXOStore> T unwrap(Class<T> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new IllegalArgumentException(getClass().getSimpleName() + " is not a " + type.getSimpleName());
+    }
+
+    /** Releases resources held by the store */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.mstawowiak.blockchain.scroogecoin.workload;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXOPool;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Initial UTXO pool and a sequence of epochs of signed transactions to feed into
+ * {@link com.github.mstawowiak.blockchain.scroogecoin.TxHandler#handleTxs(List)}
+ */
+public final class Workload {
+
+    private final List<PublicKey> addresses;
+    private final Map<UTXO, Transaction.Output> initialPool;
+    private final List<List<Transaction>> epochs;
+
+    public Workload(List<PublicKey> addresses, Map<UTXO, Transaction.Output> initialPool,
+            List<List<Transaction>> epochs) {
+        this.addresses = Collections.unmodifiableList(addresses);
+        this.initialPool = Collections.unmodifiableMap(initialPool);
+        this.epochs = Collections.unmodifiableList(epochs);
+    }
+
+    /** @return all addresses owning outputs of the workload */
+    public List<PublicKey> getAddresses() {
+        return addresses;
+    }
+
+    public Map<UTXO, Transaction.Output> getInitialPool() {
+        return initialPool;
+    }
+
+    public List<List<Transaction>> getEpochs() {
+        return epochs;
+    }
+
+    /** @return total number of transactions in all epochs */
+    public int getTxCount() {
+        return epochs.stream().mapToInt(List::size).sum();
+    }
+
+    /** @return new pool holding the initial UTXOs */
+    public UTXOPool createUTXOPool() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXOs(initialPool);
+        return utxoPool;
+    }
+}
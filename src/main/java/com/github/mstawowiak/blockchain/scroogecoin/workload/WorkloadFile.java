@@ -0,0 +1,184 @@
+package com.github.mstawowiak.blockchain.scroogecoin.workload;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.AddressRegistry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file format of a {@link Workload}. The header holds the hash of the {@link WorkloadSpec}
+ * the workload was generated from. Addresses are stored once, in a table referenced by index from
+ * every output.
+ */
+public final class WorkloadFile {
+
+    private static final int MAGIC = 0x5343574C;
+    /** bumped whenever the generator produces another workload for the same spec */
+    private static final int VERSION = 3;
+    private static final int NO_BYTES = -1;
+
+    /** Writes {@code workload}, generated from {@code spec}, to {@code file} */
+    public static void write(Workload workload, WorkloadSpec spec, Path file) throws IOException {
+        Map<PublicKey, Integer> addressIds = new HashMap<>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeBytes(out, spec.getHash());
+
+            out.writeInt(workload.getAddresses().size());
+            for (PublicKey address : workload.getAddresses()) {
+                addressIds.put(address, addressIds.size());
+                out.writeUTF(address.getAlgorithm());
+                writeBytes(out, address.getEncoded());
+            }
+
+            out.writeInt(workload.getInitialPool().size());
+            for (Map.Entry<UTXO, Transaction.Output> entry : workload.getInitialPool().entrySet()) {
+                writeBytes(out, entry.getKey().getTxHash());
+                out.writeInt(entry.getKey().getIndex());
+                writeOutput(out, entry.getValue(), addressIds);
+            }
+
+            out.writeInt(workload.getEpochs().size());
+            for (List<Transaction> epoch : workload.getEpochs()) {
+                out.writeInt(epoch.size());
+                for (Transaction tx : epoch) {
+                    writeTransaction(out, tx, addressIds);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if {@code file} is a workload file of the current version generated from
+     *         {@code spec}
+     */
+    public static boolean isGeneratedFrom(Path file, WorkloadSpec spec) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION
+                    && Arrays.equals(spec.getHash(), readBytes(in));
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    public static Workload read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a workload file of version " + VERSION + ": " + file);
+            }
+            readBytes(in);
+
+            int addressCount = in.readInt();
+            List<PublicKey> addresses = new ArrayList<>(addressCount);
+            for (int i = 0; i < addressCount; i++) {
+                addresses.add(decodeAddress(in.readUTF(), readBytes(in)));
+            }
+
+            Transaction genesis = new Transaction();
+            int poolSize = in.readInt();
+            Map<UTXO, Transaction.Output> initialPool = new LinkedHashMap<>();
+            for (int i = 0; i < poolSize; i++) {
+                UTXO utxo = UTXO.of(readBytes(in), in.readInt());
+                initialPool.put(utxo, genesis.new Output(in.readDouble(), addresses.get(in.readInt())));
+            }
+
+            int epochCount = in.readInt();
+            List<List<Transaction>> epochs = new ArrayList<>(epochCount);
+            for (int i = 0; i < epochCount; i++) {
+                int txCount = in.readInt();
+                List<Transaction> epoch = new ArrayList<>(txCount);
+                for (int j = 0; j < txCount; j++) {
+                    epoch.add(readTransaction(in, addresses));
+                }
+                epochs.add(epoch);
+            }
+            return new Workload(addresses, initialPool, epochs);
+        }
+    }
+
+    private static void writeTransaction(DataOutputStream out, Transaction tx, Map<PublicKey, Integer> addressIds)
+            throws IOException {
+        out.writeInt(tx.numInputs());
+        for (Transaction.Input input : tx.getInputs()) {
+            writeBytes(out, input.prevTxHash);
+            out.writeInt(input.outputIndex);
+            writeBytes(out, input.signature);
+        }
+        out.writeInt(tx.numOutputs());
+        for (Transaction.Output output : tx.getOutputs()) {
+            writeOutput(out, output, addressIds);
+        }
+        writeBytes(out, tx.getHash());
+    }
+
+    private static Transaction readTransaction(DataInputStream in, List<PublicKey> addresses) throws IOException {
+        Transaction tx = new Transaction();
+        int inputCount = in.readInt();
+        for (int i = 0; i < inputCount; i++) {
+            tx.addInput(readBytes(in), in.readInt());
+            tx.addSignature(readBytes(in), i);
+        }
+        int outputCount = in.readInt();
+        for (int i = 0; i < outputCount; i++) {
+            tx.addOutput(in.readDouble(), addresses.get(in.readInt()));
+        }
+        tx.setHash(readBytes(in));
+        return tx;
+    }
+
+    private static void writeOutput(DataOutputStream out, Transaction.Output output,
+            Map<PublicKey, Integer> addressIds) throws IOException {
+        Integer addressId = addressIds.get(output.address);
+        if (addressId == null) {
+            throw new IllegalArgumentException("Output address is missing from workload addresses");
+        }
+        out.writeDouble(output.value);
+        out.writeInt(addressId);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(NO_BYTES);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NO_BYTES) {
+            return null; //NOPMD - ReturnEmptyArrayRatherThanNull
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static PublicKey decodeAddress(String algorithm, byte[] encoded) throws IOException {
+        try {
+            return AddressRegistry.decode(algorithm, encoded);
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Can not decode workload address", ex);
+        }
+    }
+
+    private WorkloadFile() {
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.mstawowiak.blockchain.scroogecoin.workload;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates reproducible workloads of fully signed transactions. The same {@link WorkloadSpec}
+ * always yields the same workload, keys included.
+ *
+ * <p>Valid transactions spend random unspent outputs and split their value over new outputs owned
+ * by random keys. Invalid ones have a negative output, spend more than their inputs, carry a broken
+ * signature or reference an unknown output. Double spends re-spend an output already spent by an
+ * earlier valid transaction. Out-of-order transactions are placed before the transaction whose
+ * output they spend.
+ *
+ * <p>Owners of outputs are picked uniformly, or following a Zipf distribution over the keys when
+ * {@link WorkloadSpec#getAddressSkew()} is positive.
+ *
+ * <p>An epoch ends up shorter than requested when there are not enough spendable outputs within
+ * the chain depth limit, so the pool size should comfortably exceed transactions times inputs.
+ */
+public final class WorkloadGenerator {
+
+    private static final String SEED_ALGORITHM = "SHA1PRNG";
+    private static final int MAX_INITIAL_VALUE = 100;
+    private static final double CENTS = 100;
+
+    private final WorkloadSpec spec;
+    private final Random random;
+    private final List<KeyPair> keys = new ArrayList<>();
+    private final Transaction genesis = new Transaction();
+    /** Cumulative probability of picking each key as an owner, null when keys are picked uniformly */
+    private double[] ownerDistribution;
+
+    private final List<Coin> available = new ArrayList<>();
+    private final List<Coin> spent = new ArrayList<>();
+    private int txCounter;
+
+    private WorkloadGenerator(WorkloadSpec spec) {
+        this.spec = spec;
+        this.random = new Random(spec.getSeed());
+    }
+
+    /** @return workload generated from {@code spec} */
+    public static Workload generate(WorkloadSpec spec) {
+        return new WorkloadGenerator(spec).generate();
+    }
+
+    /**
+     * @return workload read from {@code file} if it was generated from {@code spec}, otherwise one
+     *         generated from {@code spec} and written to {@code file} for the next run
+     */
+    public static Workload loadOrGenerate(WorkloadSpec spec, Path file) throws IOException {
+        if (Files.exists(file) && WorkloadFile.isGeneratedFrom(file, spec)) {
+            return WorkloadFile.read(file);
+        }
+        Workload workload = generate(spec);
+        WorkloadFile.write(workload, spec, file);
+        return workload;
+    }
+
+    private Workload generate() {
+        generateKeys();
+        Map<UTXO, Transaction.Output> initialPool = generateInitialPool();
+
+        List<List<Transaction>> epochs = new ArrayList<>(spec.getEpochCount());
+        for (int i = 0; i < spec.getEpochCount(); i++) {
+            epochs.add(generateEpoch());
+        }
+
+        List<PublicKey> addresses = new ArrayList<>(keys.size());
+        keys.forEach(keyPair -> addresses.add(keyPair.getPublic()));
+        return new Workload(addresses, initialPool, epochs);
+    }
+
+    private void generateKeys() {
+        try {
+            SecureRandom keyRandom = SecureRandom.getInstance(SEED_ALGORITHM);
+            keyRandom.setSeed(spec.getSeed());
+            for (int i = 0; i < spec.getKeyCount(); i++) {
+                keys.add(RSA.generateRSA(spec.getKeySize(), keyRandom));
+            }
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Required algorithm '" + SEED_ALGORITHM + "' is not supported", ex);
+        }
+        if (spec.getAddressSkew() > 0) {
+            ownerDistribution = zipfDistribution(keys.size(), spec.getAddressSkew());
+        }
+    }
+
+    private static double[] zipfDistribution(int keyCount, double exponent) {
+        double[] cumulative = new double[keyCount];
+        double sum = 0;
+        for (int rank = 0; rank < keyCount; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < keyCount; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private int[] nextOwners(int count) {
+        int[] owners = new int[count];
+        for (int i = 0; i < count; i++) {
+            owners[i] = nextOwner();
+        }
+        return owners;
+    }
+
+    private int nextOwner() {
+        if (ownerDistribution == null) {
+            return random.nextInt(keys.size());
+        }
+        int rank = Arrays.binarySearch(ownerDistribution, random.nextDouble());
+        return Math.min(rank < 0 ? -rank - 1 : rank, keys.size() - 1);
+    }
+
+    private Map<UTXO, Transaction.Output> generateInitialPool() {
+        Map<UTXO, Transaction.Output> initialPool = new LinkedHashMap<>();
+        for (int i = 0; i < spec.getPoolSize(); i++) {
+            UTXO utxo = UTXO.of(HashCalculcator.calculateSHA256("GENESIS_" + spec.getSeed() + "_" + i), 0);
+            Coin coin = new Coin(utxo, 1 + random.nextInt(MAX_INITIAL_VALUE), nextOwner(), 0);
+            initialPool.put(utxo, genesis.new Output(coin.value, keys.get(coin.owner).getPublic()));
+            available.add(coin);
+        }
+        return initialPool;
+    }
+
+    private List<Transaction> generateEpoch() {
+        List<Transaction> epoch = new ArrayList<>(spec.getTxPerEpoch());
+        Map<Transaction, Transaction> parents = new IdentityHashMap<>();
+        Map<UTXO, Transaction> createdBy = new HashMap<>();
+        List<Coin> parked = new ArrayList<>();
+
+        for (int i = 0; i < spec.getTxPerEpoch(); i++) {
+            double kind = random.nextDouble();
+            Transaction tx;
+            if (kind < spec.getInvalidFraction()) {
+                tx = invalidTx();
+            } else if (kind < spec.getInvalidFraction() + spec.getDoubleSpendFraction() && !spent.isEmpty()) {
+                tx = doubleSpendTx();
+            } else {
+                tx = validTx(parked, parents, createdBy);
+            }
+            if (tx != null) {
+                epoch.add(tx);
+            }
+        }
+
+        reorder(epoch, parents);
+        for (Coin coin : available) {
+            coin.depth = 0;
+        }
+        for (Coin coin : parked) {
+            coin.depth = 0;
+            available.add(coin);
+        }
+        return epoch;
+    }
+
+    private Transaction validTx(List<Coin> parked, Map<Transaction, Transaction> parents,
+            Map<UTXO, Transaction> createdBy) {
+        List<Coin> inputs = takeCoins(parked);
+        if (inputs.isEmpty()) {
+            return null;
+        }
+        double total = 0;
+        int depth = 0;
+        for (Coin coin : inputs) {
+            total += coin.value;
+            depth = Math.max(depth, coin.depth);
+        }
+
+        double[] values = split(total);
+        int[] owners = nextOwners(values.length);
+        Transaction tx = signedTx(inputs, values, owners);
+
+        for (Coin coin : inputs) {
+            Transaction parent = createdBy.get(coin.utxo);
+            if (parent != null) {
+                parents.put(tx, parent);
+            }
+        }
+        spent.addAll(inputs);
+        for (int i = 0; i < values.length; i++) {
+            Coin coin = new Coin(UTXO.of(tx.getHash(), i), values[i], owners[i], depth + 1);
+            createdBy.put(coin.utxo, tx);
+            available.add(coin);
+        }
+        return tx;
+    }
+
+    private Transaction doubleSpendTx() {
+        Coin coin = spent.get(random.nextInt(spent.size()));
+        List<Coin> inputs = new ArrayList<>();
+        inputs.add(coin);
+        return signedTx(inputs, new double[] {coin.value}, new int[] {nextOwner()});
+    }
+
+    private Transaction invalidTx() {
+        List<Coin> inputs = new ArrayList<>();
+        for (int i = 0; i < spec.getInputsPerTx() && !available.isEmpty(); i++) {
+            inputs.add(available.get(random.nextInt(available.size())));
+        }
+        if (inputs.isEmpty()) {
+            return null;
+        }
+        double total = inputs.stream().mapToDouble(coin -> coin.value).sum();
+        double[] values = split(total);
+        int[] owners = nextOwners(values.length);
+
+        int defect = random.nextInt(4);
+        if (defect == 0) {
+            values[0] = -values[0] - 1;
+        } else if (defect == 1) {
+            values[0] += total + 1;
+        } else if (defect == 2) {
+            Coin unknown = inputs.get(0);
+            inputs.set(0, new Coin(UTXO.of(HashCalculcator.calculateSHA256("UNKNOWN_" + txCounter), 0),
+                    unknown.value, unknown.owner, 0));
+        }
+        Transaction tx = signedTx(inputs, values, owners);
+        if (defect == 3) {
+            byte[] signature = tx.getInput(0).signature.clone();
+            signature[0] ^= 1;
+            tx.addSignature(signature, 0);
+            tx.calculateHash();
+        }
+        return tx;
+    }
+
+    private List<Coin> takeCoins(List<Coin> parked) {
+        List<Coin> taken = new ArrayList<>(spec.getInputsPerTx());
+        while (taken.size() < spec.getInputsPerTx() && !available.isEmpty()) {
+            int index = random.nextInt(available.size());
+            Coin coin = available.get(index);
+            available.set(index, available.get(available.size() - 1));
+            available.remove(available.size() - 1);
+            if (coin.depth < spec.getChainDepth()) {
+                taken.add(coin);
+            } else {
+                parked.add(coin);
+            }
+        }
+        if (taken.size() < spec.getInputsPerTx()) {
+            available.addAll(taken);
+            taken.clear();
+        }
+        return taken;
+    }
+
+    /** Splits {@code total} into random, non-negative parts whose sum does not exceed it */
+    private double[] split(double total) {
+        double[] weights = new double[spec.getOutputsPerTx()];
+        double weightSum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextDouble() + Double.MIN_VALUE;
+            weightSum += weights[i];
+        }
+        double[] values = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            values[i] = Math.floor(total * weights[i] / weightSum * CENTS) / CENTS;
+        }
+        return values;
+    }
+
+    private Transaction signedTx(List<Coin> inputs, double[] values, int[] owners) {
+        Transaction tx = new Transaction();
+        for (int i = 0; i < values.length; i++) {
+            tx.addOutput(values[i], keys.get(owners[i]).getPublic());
+        }
+        for (Coin coin : inputs) {
+            tx.addInput(coin.utxo.getTxHash(), coin.utxo.getIndex());
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            byte[] signature = Crypto.sign(keys.get(inputs.get(i).owner).getPrivate(), tx.getRawDataToSign(i));
+            tx.addSignature(signature, i);
+        }
+        tx.calculateHash();
+        txCounter++;
+        return tx;
+    }
+
+    /** Moves a fraction of chained transactions in front of their parents */
+    private void reorder(List<Transaction> epoch, Map<Transaction, Transaction> parents) {
+        for (Transaction child : new ArrayList<>(epoch)) {
+            Transaction parent = parents.get(child);
+            if (parent != null && random.nextDouble() < spec.getOutOfOrderFraction()) {
+                epoch.remove(child);
+                epoch.add(epoch.indexOf(parent), child);
+            }
+        }
+    }
+
+    private static final class Coin {
+        private final UTXO utxo;
+        private final double value;
+        private final int owner;
+        /** length of the chain of transactions of the current epoch which created this coin */
+        private int depth;
+
+        private Coin(UTXO utxo, double value, int owner, int depth) {
+            this.utxo = utxo;
+            this.value = value;
+            this.owner = owner;
+            this.depth = depth;
+        }
+    }
+}
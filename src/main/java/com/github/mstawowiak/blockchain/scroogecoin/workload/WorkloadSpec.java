@@ -0,0 +1,229 @@
+package com.github.mstawowiak.blockchain.scroogecoin.workload;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import java.nio.ByteBuffer;
+
+/**
+ * Parameters of a synthetic workload generated by {@link WorkloadGenerator}
+ */
+public final class WorkloadSpec {
+
+    private final long seed;
+    private final int keyCount;
+    private final int keySize;
+    private final int poolSize;
+    private final int epochCount;
+    private final int txPerEpoch;
+    private final int inputsPerTx;
+    private final int outputsPerTx;
+    private final int chainDepth;
+    private final double invalidFraction;
+    private final double doubleSpendFraction;
+    private final double outOfOrderFraction;
+    private final double addressSkew;
+
+    private WorkloadSpec(Builder builder) {
+        this.seed = builder.seed;
+        this.keyCount = builder.keyCount;
+        this.keySize = builder.keySize;
+        this.poolSize = builder.poolSize;
+        this.epochCount = builder.epochCount;
+        this.txPerEpoch = builder.txPerEpoch;
+        this.inputsPerTx = builder.inputsPerTx;
+        this.outputsPerTx = builder.outputsPerTx;
+        this.chainDepth = builder.chainDepth;
+        this.invalidFraction = builder.invalidFraction;
+        this.doubleSpendFraction = builder.doubleSpendFraction;
+        this.outOfOrderFraction = builder.outOfOrderFraction;
+        this.addressSkew = builder.addressSkew;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** @return SHA-256 of all parameters, identifying the workload generated from this spec */
+    public byte[] getHash() {
+        ByteBuffer parameters = ByteBuffer.allocate(Long.BYTES + 8 * Integer.BYTES + 4 * Double.BYTES)
+                .putLong(seed)
+                .putInt(keyCount)
+                .putInt(keySize)
+                .putInt(poolSize)
+                .putInt(epochCount)
+                .putInt(txPerEpoch)
+                .putInt(inputsPerTx)
+                .putInt(outputsPerTx)
+                .putInt(chainDepth)
+                .putDouble(invalidFraction)
+                .putDouble(doubleSpendFraction)
+                .putDouble(outOfOrderFraction)
+                .putDouble(addressSkew);
+        return HashCalculcator.calculateSHA256(parameters.array());
+    }
+
+    /** @return seed of all random choices, including key generation */
+    public long getSeed() {
+        return seed;
+    }
+
+    /** @return number of distinct key pairs owning outputs */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /** @return RSA key size in bits */
+    public int getKeySize() {
+        return keySize;
+    }
+
+    /** @return number of UTXOs in the initial pool */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getEpochCount() {
+        return epochCount;
+    }
+
+    public int getTxPerEpoch() {
+        return txPerEpoch;
+    }
+
+    public int getInputsPerTx() {
+        return inputsPerTx;
+    }
+
+    public int getOutputsPerTx() {
+        return outputsPerTx;
+    }
+
+    /**
+     * @return maximum length of a chain of transactions within one epoch, each spending an output
+     *         of the previous one; 1 means transactions spend only outputs of earlier epochs
+     */
+    public int getChainDepth() {
+        return chainDepth;
+    }
+
+    /** @return fraction of transactions which are invalid on their own */
+    public double getInvalidFraction() {
+        return invalidFraction;
+    }
+
+    /** @return fraction of transactions which spend an already spent output */
+    public double getDoubleSpendFraction() {
+        return doubleSpendFraction;
+    }
+
+    /** @return fraction of chained transactions placed in the epoch before their parent */
+    public double getOutOfOrderFraction() {
+        return outOfOrderFraction;
+    }
+
+    /**
+     * @return Zipf exponent of the choice of the key owning an output; 0 picks keys uniformly,
+     *         larger values concentrate outputs on a few hot keys
+     */
+    public double getAddressSkew() {
+        return addressSkew;
+    }
+
+    public static final class Builder {
+        private long seed;
+        private int keyCount = 10;
+        private int keySize = 2048;
+        private int poolSize = 100;
+        private int epochCount = 1;
+        private int txPerEpoch = 100;
+        private int inputsPerTx = 1;
+        private int outputsPerTx = 1;
+        private int chainDepth = 1;
+        private double invalidFraction;
+        private double doubleSpendFraction;
+        private double outOfOrderFraction;
+        private double addressSkew;
+
+        private Builder() {
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder keyCount(int keyCount) {
+            this.keyCount = keyCount;
+            return this;
+        }
+
+        public Builder keySize(int keySize) {
+            this.keySize = keySize;
+            return this;
+        }
+
+        public Builder poolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        public Builder epochCount(int epochCount) {
+            this.epochCount = epochCount;
+            return this;
+        }
+
+        public Builder txPerEpoch(int txPerEpoch) {
+            this.txPerEpoch = txPerEpoch;
+            return this;
+        }
+
+        public Builder inputsPerTx(int inputsPerTx) {
+            this.inputsPerTx = inputsPerTx;
+            return this;
+        }
+
+        public Builder outputsPerTx(int outputsPerTx) {
+            this.outputsPerTx = outputsPerTx;
+            return this;
+        }
+
+        public Builder chainDepth(int chainDepth) {
+            this.chainDepth = chainDepth;
+            return this;
+        }
+
+        public Builder invalidFraction(double invalidFraction) {
+            this.invalidFraction = invalidFraction;
+            return this;
+        }
+
+        public Builder doubleSpendFraction(double doubleSpendFraction) {
+            this.doubleSpendFraction = doubleSpendFraction;
+            return this;
+        }
+
+        public Builder outOfOrderFraction(double outOfOrderFraction) {
+            this.outOfOrderFraction = outOfOrderFraction;
+            return this;
+        }
+
+        public Builder addressSkew(double addressSkew) {
+            this.addressSkew = addressSkew;
+            return this;
+        }
+
+        public WorkloadSpec build() {
+            if (keyCount < 1 || poolSize < 1 || epochCount < 0 || txPerEpoch < 0
+                    || inputsPerTx < 1 || outputsPerTx < 1 || chainDepth < 1) {
+                throw new IllegalArgumentException("Counts must be positive");
+            }
+            if (invalidFraction < 0 || doubleSpendFraction < 0 || outOfOrderFraction < 0
+                    || invalidFraction + doubleSpendFraction > 1 || outOfOrderFraction > 1) {
+                throw new IllegalArgumentException("Fractions must be in [0, 1]");
+            }
+            if (addressSkew < 0) {
+                throw new IllegalArgumentException("Address skew must not be negative");
+            }
+            return new WorkloadSpec(this);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link AsyncTxHandler}
+ */
+public class AsyncTxHandlerTest {
+
+    private AsyncTxHandler asyncTxHandler;
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final UTXO UTXO_A0 = UTXO.of(TX_A_HASH, 0);
+    private static final UTXO UTXO_A1 = UTXO.of(TX_A_HASH, 1);
+    private static final double UTXO_VALUE = 50;
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA2048();
+    private static final PublicKey JOHN_PUBLIC_KEY = JOHN_KEY_PAIR.getPublic();
+
+    private static final KeyPair MARK_KEY_PAIR = RSA.generateRSA2048();
+    private static final PublicKey MARK_PUBLIC_KEY = MARK_KEY_PAIR.getPublic();
+
+    @Before
+    public void beforeTest() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO_A0, new Transaction().new Output(UTXO_VALUE, JOHN_PUBLIC_KEY));
+        utxoPool.addUTXO(UTXO_A1, new Transaction().new Output(UTXO_VALUE, JOHN_PUBLIC_KEY));
+        asyncTxHandler = new AsyncTxHandler(utxoPool, 2, 16);
+    }
+
+    @After
+    public void afterTest() {
+        asyncTxHandler.close();
+    }
+
+    @Test
+    public void shouldAcceptValidTransaction() throws Exception {
+        CompletableFuture<Boolean> result = asyncTxHandler.submit(
+                makeTxn(JOHN_KEY_PAIR.getPrivate(), UTXO_A0, UTXO_VALUE, MARK_PUBLIC_KEY));
+
+        assertTrue(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldRejectNegativeOutputWithoutReachingLedger() throws Exception {
+        CompletableFuture<Boolean> result = asyncTxHandler.submit(
+                makeTxn(JOHN_KEY_PAIR.getPrivate(), UTXO_A0, -UTXO_VALUE, MARK_PUBLIC_KEY));
+
+        assertFalse(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldRejectTransactionSignedByOtherKey() throws Exception {
+        CompletableFuture<Boolean> result = asyncTxHandler.submit(
+                makeTxn(MARK_KEY_PAIR.getPrivate(), UTXO_A0, UTXO_VALUE, MARK_PUBLIC_KEY));
+
+        assertFalse(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldRejectUnsignedTransaction() throws Exception {
+        Transaction tx = new Transaction();
+        tx.addOutput(UTXO_VALUE, MARK_PUBLIC_KEY);
+        tx.addInput(UTXO_A0.getTxHash(), UTXO_A0.getIndex());
+        tx.calculateHash();
+
+        //when
+        CompletableFuture<Boolean> result = asyncTxHandler.submit(tx);
+
+        assertFalse(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldApplyTransactionAsSubmitted() throws Exception {
+        Transaction tx = makeTxn(JOHN_KEY_PAIR.getPrivate(), UTXO_A0, UTXO_VALUE, MARK_PUBLIC_KEY);
+        CompletableFuture<Boolean> result = asyncTxHandler.submit(tx);
+
+        //when
+        tx.getOutput(0).value = 2 * UTXO_VALUE;
+
+        assertTrue(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldAcceptOnlyOneOfTwoDoubleSpends() throws Exception {
+        CompletableFuture<Boolean> first = asyncTxHandler.submit(
+                makeTxn(JOHN_KEY_PAIR.getPrivate(), UTXO_A1, UTXO_VALUE, MARK_PUBLIC_KEY));
+        CompletableFuture<Boolean> second = asyncTxHandler.submit(
+                makeTxn(JOHN_KEY_PAIR.getPrivate(), UTXO_A1, UTXO_VALUE - 1, MARK_PUBLIC_KEY));
+
+        assertTrue(first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) ^ second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldFailSubmitAfterClose() throws Exception {
+        asyncTxHandler.close();
+
+        CompletableFuture<Boolean> result = asyncTxHandler.submit(
+                makeTxn(JOHN_KEY_PAIR.getPrivate(), UTXO_A0, UTXO_VALUE, MARK_PUBLIC_KEY));
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    private Transaction makeTxn(PrivateKey privateKey, UTXO utxo, double value, PublicKey address) {
+        Transaction transaction = new Transaction();
+        transaction.addOutput(value, address);
+        transaction.addInput(utxo.getTxHash(), utxo.getIndex());
+        transaction.addSignature(Crypto.sign(privateKey, transaction.getRawDataToSign(0)), 0);
+        transaction.calculateHash();
+
+        return transaction;
+    }
+
+}
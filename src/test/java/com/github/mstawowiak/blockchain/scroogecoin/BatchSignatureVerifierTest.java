@@ -0,0 +1,99 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link BatchSignatureVerifier}
+ */
+public class BatchSignatureVerifierTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final int HOT_OUTPUTS = 100;
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final KeyPair MARK_KEY_PAIR = RSA.generateRSA(512);
+
+    private UTXOPool utxoPool;
+
+    @Before
+    public void beforeTest() {
+        utxoPool = new UTXOPool();
+        for (int i = 0; i < HOT_OUTPUTS; i++) {
+            utxoPool.addUTXO(UTXO.of(TX_A_HASH, i), new Transaction().new Output(10, JOHN_KEY_PAIR.getPublic()));
+        }
+    }
+
+    @Test
+    public void shouldRejectOnlyTransactionsWithInvalidSignature() {
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < HOT_OUTPUTS; i++) {
+            txs.add(spending(TX_A_HASH, i, JOHN_KEY_PAIR));
+        }
+        txs.set(7, spending(TX_A_HASH, 7, MARK_KEY_PAIR));
+
+        //when
+        BitSet valid = BatchSignatureVerifier.verify(txs, utxoPool);
+
+        assertEquals(HOT_OUTPUTS - 1, valid.cardinality());
+        assertFalse(valid.get(7));
+    }
+
+    @Test
+    public void shouldVerifyInputSpendingOutputOfSameEpoch() {
+        Transaction parent = spending(TX_A_HASH, 0, JOHN_KEY_PAIR);
+        Transaction child = spending(parent.getHash(), 0, MARK_KEY_PAIR);
+        Transaction forged = spending(parent.getHash(), 0, JOHN_KEY_PAIR);
+
+        BitSet valid = BatchSignatureVerifier.verify(Arrays.asList(child, parent, forged), utxoPool);
+
+        assertTrue(valid.get(0));
+        assertTrue(valid.get(1));
+        assertFalse(valid.get(2));
+    }
+
+    @Test
+    public void shouldCheckOnlyCandidates() {
+        List<Transaction> txs = Arrays.asList(spending(TX_A_HASH, 0, MARK_KEY_PAIR),
+                spending(TX_A_HASH, 1, JOHN_KEY_PAIR));
+        BitSet candidates = new BitSet();
+        candidates.set(1);
+
+        BitSet valid = BatchSignatureVerifier.verify(txs, candidates, utxoPool);
+
+        assertEquals(1, valid.cardinality());
+        assertTrue(valid.get(1));
+    }
+
+    @Test
+    public void shouldLeaveUnknownOutputsToPoolRules() {
+        Transaction unknown = spending(HashCalculcator.calculateSHA256("UNKNOWN"), 0, JOHN_KEY_PAIR);
+
+        BitSet valid = BatchSignatureVerifier.verify(Arrays.asList(unknown), utxoPool);
+
+        assertTrue(valid.get(0));
+    }
+
+    /** @return transaction paying to Mark and signed by {@code signer} */
+    private static Transaction spending(byte[] prevTxHash, int index, KeyPair signer) {
+        Transaction tx = new Transaction();
+        tx.addInput(prevTxHash, index);
+        tx.addOutput(5, MARK_KEY_PAIR.getPublic());
+        tx.addSignature(Crypto.sign(signer.getPrivate(), tx.getRawDataToSign(0)), 0);
+        tx.calculateHash();
+        return tx;
+    }
+
+}
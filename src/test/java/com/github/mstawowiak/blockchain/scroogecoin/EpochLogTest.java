@@ -0,0 +1,109 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.InclusionProof;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link EpochLog}
+ */
+public class EpochLogTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final byte[] TX_B_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_B");
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final Transaction.Output OUTPUT = new Transaction().new Output(10, JOHN_KEY_PAIR.getPublic());
+    private static final UTXODelta EMPTY_DELTA = new UTXODelta(Collections.emptyMap(), Collections.emptyMap());
+
+    private TxHandler txHandler;
+
+    @Before
+    public void beforeTest() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), OUTPUT);
+        utxoPool.addUTXO(UTXO.of(TX_B_HASH, 0), OUTPUT);
+        txHandler = new TxHandler(utxoPool);
+    }
+
+    @Test
+    public void shouldChainRecordsOfHandledEpochs() {
+        Transaction first = spending(TX_A_HASH);
+        Transaction second = spending(TX_B_HASH);
+
+        txHandler.handleTxs(Collections.singletonList(first));
+        txHandler.handleTxs(Collections.singletonList(second));
+
+        EpochLog epochLog = txHandler.getEpochLog();
+        assertEquals(2, epochLog.size());
+        assertArrayEquals(epochLog.get(0).getHash(), epochLog.get(1).getPreviousHash());
+        assertEquals(1, epochLog.get(1).getAddedCount());
+        assertEquals(1, epochLog.get(1).getRemovedCount());
+        assertTrue(epochLog.verifyChain());
+    }
+
+    @Test
+    public void shouldProveInclusionOfAcceptedTransaction() {
+        Transaction first = spending(TX_A_HASH);
+        Transaction second = spending(TX_B_HASH);
+
+        txHandler.handleTxs(Arrays.asList(first, second));
+
+        EpochRecord record = txHandler.getEpochLog().getLatest();
+        InclusionProof proof = record.prove(second.getHash());
+        assertEquals(2, record.getAcceptedCount());
+        assertTrue(proof.verify(record.getTransactionsRoot()));
+        assertNull(record.prove(TX_A_HASH));
+    }
+
+    @Test
+    public void shouldPruneRecordsOfOlderEpochs() {
+        EpochLog epochLog = new EpochLog(1);
+        Transaction first = spending(TX_A_HASH);
+        Transaction second = spending(TX_B_HASH);
+
+        epochLog.append(Collections.singletonList(first), EMPTY_DELTA);
+        epochLog.append(Collections.singletonList(second), EMPTY_DELTA);
+
+        EpochRecord pruned = epochLog.get(0);
+        assertTrue(pruned.isPruned());
+        assertNull(pruned.prove(first.getHash()));
+        assertEquals(1, pruned.getAcceptedCount());
+        assertFalse(epochLog.get(1).isPruned());
+        assertTrue(epochLog.get(1).prove(second.getHash()).verify(epochLog.get(1).getTransactionsRoot()));
+        assertTrue(epochLog.verifyChain());
+    }
+
+    @Test
+    public void shouldDropRecordOfRolledBackEpoch() {
+        txHandler.handleTxs(Collections.singletonList(spending(TX_A_HASH)));
+        txHandler.handleTxs(Arrays.asList(spending(TX_B_HASH)));
+
+        txHandler.rollbackLastEpoch();
+
+        assertEquals(1, txHandler.getEpochLog().size());
+        assertTrue(txHandler.getEpochLog().verifyChain());
+    }
+
+    private static Transaction spending(byte[] prevTxHash) {
+        Transaction tx = new Transaction();
+        tx.addInput(prevTxHash, 0);
+        tx.addOutput(5, JOHN_KEY_PAIR.getPublic());
+        tx.addSignature(Crypto.sign(JOHN_KEY_PAIR.getPrivate(), tx.getRawDataToSign(0)), 0);
+        tx.calculateHash();
+        return tx;
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link EpochScheduler}
+ */
+public class EpochSchedulerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MICROS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final int TX_COUNT = 50;
+    private static final long MAX_WAIT_MILLIS = 20;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final KeyPair MARK_KEY_PAIR = RSA.generateRSA(512);
+
+    @Test
+    public void shouldFitFixedAndPerTransactionCost() {
+        EpochCostModel costModel = new EpochCostModel(MICROS);
+
+        for (int size = 10; size <= 100; size += 10) {
+            costModel.observe(size, 2 * MILLIS + size * 10 * MICROS);
+        }
+
+        assertEquals(2 * MILLIS, costModel.getFixedNanos(), MICROS);
+        assertEquals(10 * MICROS, costModel.getPerTxNanos(), MICROS / 10);
+    }
+
+    @Test
+    public void shouldPickSmallestBatchReachingThroughputWithinLatency() {
+        EpochCostModel costModel = fittedModel();
+
+        // 1 ms + 10 us per tx reaches 50 000 tx/s from 100 tx, 20 ms are exceeded above 1900 tx
+        assertEquals(100, costModel.batchSize(20 * MILLIS, 50_000, 1, 10_000), 1);
+        assertEquals(1900, costModel.batchSize(20 * MILLIS, 99_000, 1, 10_000), 1);
+        assertEquals(500, costModel.batchSize(20 * MILLIS, 99_000, 1, 500));
+        assertEquals(30, costModel.batchSize(20 * MILLIS, 1_000, 30, 500));
+    }
+
+    @Test
+    public void shouldCloseEpochsOfSubmittedTransactions() throws Exception {
+        UTXOPool utxoPool = new UTXOPool();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+
+        try (EpochScheduler scheduler = EpochScheduler.builder(utxoPool)
+                .latencyTargetMillis(200)
+                .maxWaitMillis(20)
+                .build()) {
+            for (int i = 0; i < TX_COUNT; i++) {
+                results.add(scheduler.submit(spendingMissingOutput(i)));
+            }
+            for (CompletableFuture<Boolean> result : results) {
+                assertFalse(result.get(10, TimeUnit.SECONDS));
+            }
+            assertTrue(scheduler.getEpochCount() > 0);
+            assertTrue(scheduler.getTargetBatchSize() >= 1);
+        }
+    }
+
+    @Test
+    public void shouldCompleteAcceptedTransactionWithTrue() throws Exception {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), new Transaction().new Output(10, JOHN_KEY_PAIR.getPublic()));
+
+        try (EpochScheduler scheduler = EpochScheduler.builder(utxoPool)
+                .maxWaitMillis(MAX_WAIT_MILLIS)
+                .build()) {
+            Transaction tx = new Transaction();
+            tx.addInput(TX_A_HASH, 0);
+            tx.addOutput(10, MARK_KEY_PAIR.getPublic());
+            tx.addSignature(Crypto.sign(JOHN_KEY_PAIR.getPrivate(), tx.getRawDataToSign(0)), 0);
+            tx.calculateHash();
+
+            CompletableFuture<Boolean> result = scheduler.submit(tx);
+            tx.getOutput(0).value = 20;
+
+            assertTrue(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldCloseEpochOnTimeLimitBeforeReachingTargetSize() throws Exception {
+        try (EpochScheduler scheduler = EpochScheduler.builder(new UTXOPool())
+                .latencyTargetMillis(200)
+                .maxWaitMillis(MAX_WAIT_MILLIS)
+                .minBatchSize(TX_COUNT)
+                .build()) {
+            long start = System.nanoTime();
+
+            //when
+            CompletableFuture<Boolean> result = scheduler.submit(spendingMissingOutput(0));
+
+            assertFalse(result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= MAX_WAIT_MILLIS * MILLIS);
+            assertEquals(1, scheduler.getEpochCount());
+            assertTrue(scheduler.getTargetBatchSize() >= TX_COUNT);
+        }
+    }
+
+    private static EpochCostModel fittedModel() {
+        EpochCostModel costModel = new EpochCostModel(MICROS);
+        for (int size = 100; size <= 1000; size += 100) {
+            costModel.observe(size, MILLIS + size * 10 * MICROS);
+        }
+        return costModel;
+    }
+
+    private static Transaction spendingMissingOutput(int index) {
+        Transaction tx = new Transaction();
+        tx.addInput(TX_A_HASH, index);
+        return tx;
+    }
+
+}
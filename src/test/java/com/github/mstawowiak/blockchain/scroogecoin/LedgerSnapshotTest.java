@@ -0,0 +1,123 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyPair;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LedgerSnapshot}
+ */
+public class LedgerSnapshotTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final byte[] TX_B_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_B");
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final Transaction.Output OUTPUT = new Transaction().new Output(10, JOHN_KEY_PAIR.getPublic());
+
+    private TxHandler txHandler;
+
+    @Before
+    public void beforeTest() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), OUTPUT);
+        utxoPool.addUTXO(UTXO.of(TX_B_HASH, 0), OUTPUT);
+        txHandler = new TxHandler(utxoPool);
+        txHandler.enableSnapshots();
+    }
+
+    @Test
+    public void shouldKeepOlderSnapshotUnchanged() {
+        LedgerSnapshot before = txHandler.getSnapshot();
+        Transaction tx = spending(TX_A_HASH);
+
+        txHandler.handleTxs(Collections.singletonList(tx));
+
+        LedgerSnapshot after = txHandler.getSnapshot();
+        assertEquals(0, before.getVersion());
+        assertTrue(before.contains(UTXO.of(TX_A_HASH, 0)));
+        assertEquals(20, before.getBalance(JOHN_KEY_PAIR.getPublic()), 0);
+        assertEquals(1, after.getVersion());
+        assertFalse(after.contains(UTXO.of(TX_A_HASH, 0)));
+        assertTrue(after.contains(UTXO.of(tx.getHash(), 0)));
+        assertEquals(2, after.size());
+        assertEquals(15, after.getBalance(JOHN_KEY_PAIR.getPublic()), 0);
+    }
+
+    @Test
+    public void shouldNotShareOutputsWithAcceptedTransactions() {
+        Transaction tx = spending(TX_A_HASH);
+        txHandler.handleTxs(Collections.singletonList(tx));
+
+        //when
+        tx.getOutput(0).value = 1000;
+
+        LedgerSnapshot after = txHandler.getSnapshot();
+        assertTrue(after.getTxOutput(UTXO.of(tx.getHash(), 0)).isDetached());
+        assertEquals(5, after.getTxOutput(UTXO.of(tx.getHash(), 0)).value, 0);
+        assertEquals(15, after.getBalance(JOHN_KEY_PAIR.getPublic()), 0);
+    }
+
+    @Test
+    public void shouldBoundChainDepthOverManyEpochs() {
+        byte[] prevTxHash = TX_A_HASH;
+        for (int epoch = 0; epoch < 3 * LedgerSnapshot.MAX_CHAIN_DEPTH; epoch++) {
+            Transaction tx = spending(prevTxHash);
+            txHandler.handleTxs(Collections.singletonList(tx));
+            prevTxHash = tx.getHash();
+        }
+
+        LedgerSnapshot snapshot = txHandler.getSnapshot();
+        assertTrue(snapshot.getChainDepth() <= LedgerSnapshot.MAX_CHAIN_DEPTH);
+        assertTrue(snapshot.contains(UTXO.of(prevTxHash, 0)));
+        assertTrue(snapshot.contains(UTXO.of(TX_B_HASH, 0)));
+        assertFalse(snapshot.contains(UTXO.of(TX_A_HASH, 0)));
+        assertEquals(txHandler.getUTXOPool().getAllUTXO().size(), snapshot.size());
+        assertEquals(15, snapshot.getBalance(JOHN_KEY_PAIR.getPublic()), 0);
+    }
+
+    @Test
+    public void shouldRepublishSnapshotOnRollback() {
+        LedgerSnapshot before = txHandler.getSnapshot();
+        Transaction tx = spending(TX_A_HASH);
+        txHandler.handleTxs(Collections.singletonList(tx));
+
+        //when
+        txHandler.rollbackLastEpoch();
+
+        LedgerSnapshot rolledBack = txHandler.getSnapshot();
+        assertEquals(2, rolledBack.getVersion());
+        assertTrue(rolledBack.contains(UTXO.of(TX_A_HASH, 0)));
+        assertFalse(rolledBack.contains(UTXO.of(tx.getHash(), 0)));
+        assertEquals(before.size(), rolledBack.size());
+        assertEquals(20, rolledBack.getBalance(JOHN_KEY_PAIR.getPublic()), 0);
+    }
+
+    @Test
+    public void shouldNotPublishSnapshotOnDryRun() {
+        LedgerSnapshot before = txHandler.getSnapshot();
+
+        txHandler.dryRun(Collections.singletonList(spending(TX_A_HASH)));
+
+        assertSame(before, txHandler.getSnapshot());
+    }
+
+    private static Transaction spending(byte[] prevTxHash) {
+        Transaction tx = new Transaction();
+        tx.addInput(prevTxHash, 0);
+        tx.addOutput(5, JOHN_KEY_PAIR.getPublic());
+        tx.addSignature(Crypto.sign(JOHN_KEY_PAIR.getPrivate(), tx.getRawDataToSign(0)), 0);
+        tx.calculateHash();
+        return tx;
+    }
+
+}
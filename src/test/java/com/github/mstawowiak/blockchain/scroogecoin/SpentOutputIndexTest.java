@@ -0,0 +1,85 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SpentOutputIndex}
+ */
+public class SpentOutputIndexTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final UTXO UTXO_A = UTXO.of(TX_A_HASH, 0);
+
+    private static final byte[] TX_B_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_B");
+    private static final UTXO UTXO_B = UTXO.of(TX_B_HASH, 0);
+
+    @Test
+    public void shouldReportNoConflictsForDisjointInputs() {
+        Transaction first = spending(UTXO_A);
+        Transaction second = spending(UTXO_B);
+
+        SpentOutputIndex index = SpentOutputIndex.of(Arrays.asList(first, second));
+
+        assertTrue(index.getConflictReport().isEmpty());
+        assertEquals(2, index.getSpentOutputs().size());
+        assertSame(second, index.getFirstSpender(UTXO_B));
+    }
+
+    @Test
+    public void shouldNameAllTransactionsCompetingForUtxo() {
+        Transaction first = spending(UTXO_A);
+        Transaction second = spending(UTXO_A, UTXO_B);
+        Transaction third = spending(UTXO_A);
+        Transaction unrelated = spending(UTXO_B);
+
+        ConflictReport report = SpentOutputIndex.of(Arrays.asList(first, second, third, unrelated))
+                .getConflictReport();
+
+        assertEquals(2, report.size());
+        List<Transaction> spendersOfA = report.getConflicts().get(UTXO_A);
+        assertEquals(3, spendersOfA.size());
+        assertSame(first, spendersOfA.get(0));
+        assertSame(second, spendersOfA.get(1));
+        assertSame(third, spendersOfA.get(2));
+        assertEquals(Arrays.asList(second, unrelated), report.getConflicts().get(UTXO_B));
+        assertEquals(4, report.getConflictingTransactions().size());
+    }
+
+    @Test
+    public void shouldNotReportDoubleSpendInsideSingleTransaction() {
+        Transaction tx = spending(UTXO_A, UTXO_A);
+
+        ConflictReport report = SpentOutputIndex.of(Arrays.asList(tx)).getConflictReport();
+
+        assertTrue(report.isEmpty());
+    }
+
+    @Test
+    public void shouldExposeConflictsOfLastEpoch() {
+        Transaction first = spending(UTXO_A);
+        Transaction second = spending(UTXO_A);
+        TxHandler txHandler = new TxHandler(new UTXOPool());
+
+        txHandler.handleTxs(Arrays.asList(first, second));
+
+        assertEquals(Arrays.asList(first, second),
+                txHandler.getLastEpoch().getConflicts().getConflicts().get(UTXO_A));
+    }
+
+    private static Transaction spending(UTXO... utxos) {
+        Transaction tx = new Transaction();
+        for (UTXO utxo : utxos) {
+            tx.addInput(utxo.getTxHash(), utxo.getIndex());
+        }
+        tx.calculateHash();
+        return tx;
+    }
+
+}
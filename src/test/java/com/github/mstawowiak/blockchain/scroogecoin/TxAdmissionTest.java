@@ -0,0 +1,117 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TxAdmission}
+ */
+public class TxAdmissionTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final byte[] TX_B_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_B");
+
+    private static final double POSITIVE_VALUE = 100.0;
+    private static final double NEGATIVE_VALUE = -100.0;
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA2048();
+    private static final PublicKey JOHN_PUBLIC_KEY = JOHN_KEY_PAIR.getPublic();
+    private static final KeyPair MARK_KEY_PAIR = RSA.generateRSA(512);
+
+    private Transaction tx;
+
+    @Before
+    public void beforeTest() {
+        tx = new Transaction();
+        tx.addInput(TX_A_HASH, 0);
+        tx.addOutput(POSITIVE_VALUE, JOHN_PUBLIC_KEY);
+    }
+
+    @Test
+    public void shouldAdmitValidTransaction() {
+        boolean result = TxAdmission.admit(tx);
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldRejectDoubleSpendAndNegativeOutput() {
+        Transaction doubleSpend = new Transaction();
+        doubleSpend.addInput(TX_A_HASH, 0);
+        doubleSpend.addInput(TX_A_HASH, 0);
+        tx.addOutput(NEGATIVE_VALUE, JOHN_PUBLIC_KEY);
+
+        assertFalse(TxAdmission.admit(doubleSpend));
+        assertFalse(TxAdmission.admit(tx));
+    }
+
+    @Test
+    public void shouldRejectTransactionChangedAfterAdmission() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), new Transaction().new Output(POSITIVE_VALUE, JOHN_PUBLIC_KEY));
+        tx.addSignature(Crypto.sign(JOHN_KEY_PAIR.getPrivate(), tx.getRawDataToSign(0)), 0);
+        tx.calculateHash();
+        assertTrue(TxAdmission.admit(tx));
+
+        //when
+        tx.getOutput(0).address = MARK_KEY_PAIR.getPublic();
+        tx.getOutput(0).value = NEGATIVE_VALUE;
+
+        TxHandler txHandler = new TxHandler(utxoPool);
+        assertFalse(txHandler.isValidTx(tx));
+        assertTrue(txHandler.handleTxs(Collections.singletonList(tx)).isEmpty());
+    }
+
+    @Test
+    public void shouldCheckStatelessRulesOfTransactionsNotAdmitted() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), new Transaction().new Output(POSITIVE_VALUE, JOHN_PUBLIC_KEY));
+        utxoPool.addUTXO(UTXO.of(TX_B_HASH, 0), new Transaction().new Output(POSITIVE_VALUE, JOHN_PUBLIC_KEY));
+        tx.addSignature(Crypto.sign(JOHN_KEY_PAIR.getPrivate(), tx.getRawDataToSign(0)), 0);
+        tx.calculateHash();
+        Transaction negative = new Transaction();
+        negative.addInput(TX_B_HASH, 0);
+        negative.addOutput(POSITIVE_VALUE, JOHN_PUBLIC_KEY);
+        negative.addOutput(NEGATIVE_VALUE, JOHN_PUBLIC_KEY);
+        negative.addSignature(Crypto.sign(JOHN_KEY_PAIR.getPrivate(), negative.getRawDataToSign(0)), 0);
+        negative.calculateHash();
+        BitSet admitted = new BitSet();
+        admitted.set(0);
+
+        //when
+        List<Transaction> accepted = new TxHandler(utxoPool)
+                .handleTxs(Arrays.asList(tx, negative), admitted, new BitSet());
+
+        assertEquals(Collections.singletonList(tx), accepted);
+    }
+
+    @Test
+    public void shouldAdmitInParallelPreservingOrder() {
+        Transaction invalid = new Transaction();
+        invalid.addInput(TX_B_HASH, 0);
+        invalid.addOutput(NEGATIVE_VALUE, JOHN_PUBLIC_KEY);
+        Transaction other = new Transaction();
+        other.addInput(TX_B_HASH, 1);
+
+        List<Transaction> admitted = TxAdmission.admitAll(Arrays.asList(tx, invalid, other));
+
+        assertEquals(2, admitted.size());
+        assertSame(tx, admitted.get(0));
+        assertSame(other, admitted.get(1));
+    }
+
+}
@@ -3,17 +3,24 @@ package com.github.mstawowiak.blockchain.scroogecoin;
 import com.github.mstawowiak.blockchain.scroogecoin.crypto.Crypto;
 import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
 import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import com.github.mstawowiak.blockchain.scroogecoin.store.HashMapUTXOStore;
+import com.github.mstawowiak.blockchain.scroogecoin.store.UTXOStore;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link TxHandler}
@@ -205,6 +212,124 @@ public class TxHandlerTest {
         assertEquals(1, result2.size());
     }
 
+    @Test
+    public void shouldRollbackLastEpoch() {
+        Transaction transactionJohnToMark = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A0),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, MARK_PUBLIC_KEY)));
+        txHandler.handleTxs(Collections.singletonList(transactionJohnToMark));
+
+        //when
+        List<Transaction> reverted = txHandler.rollbackLastEpoch();
+
+        assertEquals(1, reverted.size());
+        assertTrue(txHandler.getUTXOPool().contains(UTXO_A0));
+        assertFalse(txHandler.getUTXOPool().contains(UTXO.of(transactionJohnToMark.getHash(), 0)));
+        assertEquals(4, txHandler.getUTXOPool().getAllUTXO().size());
+    }
+
+    @Test
+    public void shouldRollbackTrailingPartOfEpoch() {
+        Transaction transactionJohnToMark = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A0),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, MARK_PUBLIC_KEY)));
+        Transaction transactionMarkToSam = makeTxn(MARK_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO.of(transactionJohnToMark.getHash(), 0)),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, SAM_PUBLIC_KEY)));
+        transactions.add(transactionJohnToMark);
+        transactions.add(transactionMarkToSam);
+        txHandler.handleTxs(transactions);
+
+        //when
+        List<Transaction> reverted = txHandler.rollbackLastEpoch(1);
+
+        assertEquals(Collections.singletonList(transactionMarkToSam), reverted);
+        assertFalse(txHandler.getUTXOPool().contains(UTXO_A0));
+        assertTrue(txHandler.getUTXOPool().contains(UTXO.of(transactionJohnToMark.getHash(), 0)));
+        assertFalse(txHandler.getUTXOPool().contains(UTXO.of(transactionMarkToSam.getHash(), 0)));
+    }
+
+    @Test
+    public void shouldReportDeltaOfDryRunWithoutCommitting() {
+        Transaction transactionJohnToMark = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A0),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, MARK_PUBLIC_KEY)));
+        Transaction transactionMarkToSam = makeTxn(MARK_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO.of(transactionJohnToMark.getHash(), 0)),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, SAM_PUBLIC_KEY)));
+        transactions.add(transactionJohnToMark);
+        transactions.add(transactionMarkToSam);
+
+        //when
+        EpochResult result = txHandler.dryRun(transactions);
+
+        assertEquals(2, result.getAccepted().size());
+        assertEquals(Collections.singleton(UTXO_A0), result.getDelta().getRemoved().keySet());
+        assertEquals(Collections.singleton(UTXO.of(transactionMarkToSam.getHash(), 0)),
+                result.getDelta().getAdded().keySet());
+        assertTrue(txHandler.getUTXOPool().contains(UTXO_A0));
+        assertEquals(4, txHandler.getUTXOPool().getAllUTXO().size());
+    }
+
+    @Test
+    public void shouldAcceptTransactionWithoutOutputsNextToValidOne() {
+        Transaction burningA0 = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A0), Collections.emptyList());
+        Transaction johnToMark = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A1),
+                Collections.singletonList(Pair.of(UTXO_A1_VALUE, MARK_PUBLIC_KEY)));
+        transactions.add(burningA0);
+        transactions.add(johnToMark);
+
+        //when
+        List<Transaction> accepted = txHandler.handleTxs(transactions);
+
+        assertEquals(2, accepted.size());
+        assertFalse(txHandler.getUTXOPool().contains(UTXO_A0));
+        assertTrue(txHandler.getUTXOPool().contains(UTXO.of(johnToMark.getHash(), 0)));
+    }
+
+    @Test
+    public void shouldRevertEpochFailingToStoreOutputs() {
+        Transaction johnToMark = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A0),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, MARK_PUBLIC_KEY)));
+        TxHandler failingHandler = new TxHandler(new UTXOPool(new FailingStore(johnToMark.getHash())));
+        failingHandler.getUTXOPool().addUTXO(UTXO_A0, utxoPool.getTxOutput(UTXO_A0));
+        LedgerSnapshot snapshot = failingHandler.enableSnapshots();
+        transactions.add(johnToMark);
+
+        //when
+        boolean failed = false;
+        try {
+            failingHandler.handleTxs(transactions);
+        } catch (IllegalStateException ex) {
+            failed = true;
+        }
+
+        assertTrue(failed);
+        assertTrue(failingHandler.getUTXOPool().contains(UTXO_A0));
+        assertEquals(0, failingHandler.getEpochLog().size());
+        assertSame(snapshot, failingHandler.getSnapshot());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRevertDryRunFailingToStoreOutputs() {
+        Transaction johnToMark = makeTxn(JOHN_KEY_PAIR.getPrivate(),
+                Collections.singletonList(UTXO_A0),
+                Collections.singletonList(Pair.of(UTXO_A0_VALUE, MARK_PUBLIC_KEY)));
+        TxHandler failingHandler = new TxHandler(new UTXOPool(new FailingStore(johnToMark.getHash())));
+        failingHandler.getUTXOPool().addUTXO(UTXO_A0, utxoPool.getTxOutput(UTXO_A0));
+        transactions.add(johnToMark);
+
+        try {
+            //when
+            failingHandler.dryRun(transactions);
+        } finally {
+            assertTrue(failingHandler.getUTXOPool().contains(UTXO_A0));
+        }
+    }
+
     private Transaction makeTxn(PrivateKey privateKey, List<UTXO> utxos, List<Pair<Double, PublicKey>> outputs) {
         Transaction transaction = new Transaction();
         for (Pair<Double, PublicKey> output : outputs) {
@@ -225,4 +350,31 @@ public class TxHandlerTest {
         return transaction;
     }
 
+    /** Store refusing outputs of the transaction {@code failingTxHash} */
+    private static class FailingStore extends HashMapUTXOStore {
+
+        private final byte[] failingTxHash;
+
+        FailingStore(byte[] failingTxHash) {
+            this.failingTxHash = failingTxHash;
+        }
+
+        @Override
+        public void putAll(Map<UTXO, Transaction.Output> entries) {
+            for (UTXO utxo : entries.keySet()) {
+                if (Arrays.equals(failingTxHash, utxo.getTxHash())) {
+                    throw new IllegalStateException("Store failure");
+                }
+            }
+            super.putAll(entries);
+        }
+
+        @Override
+        public UTXOStore copy() {
+            FailingStore copy = new FailingStore(failingTxHash);
+            keys().forEach(utxo -> copy.put(utxo, get(utxo)));
+            return copy;
+        }
+    }
+
 }
@@ -5,9 +5,12 @@ import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
 import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
 import java.security.KeyPair;
 import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.BitSet;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -193,4 +196,77 @@ public class TxValidatorTest {
         assertFalse(result);
     }
 
+    @Test
+    public void shouldReturnTrueForTransactionWithoutOutputs() {
+        utxoPool.addUTXO(UTXO_A, JOHN_OUTPUT);
+        tx.addInput(TX_A_HASH, TX_A_INDEX);
+
+        boolean result = TxValidator.sumInputsGeOutputs(tx, utxoPool);
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldReturnFalseForTransactionWithoutInputsCreatingValue() {
+        tx.addOutput(POSITIVE_VALUE, MARK_PUBLIC_KEY);
+
+        boolean result = TxValidator.sumInputsGeOutputs(tx, utxoPool);
+
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldApplyStatelessRulesToBatch() {
+        Transaction valid = new Transaction();
+        valid.addInput(TX_A_HASH, TX_A_INDEX);
+        valid.addInput(TX_B_HASH, TX_B_INDEX);
+        valid.addOutput(POSITIVE_VALUE, MARK_PUBLIC_KEY);
+        Transaction doubleSpend = new Transaction();
+        doubleSpend.addInput(TX_A_HASH, TX_A_INDEX);
+        doubleSpend.addInput(TX_A_HASH, TX_A_INDEX);
+        doubleSpend.addOutput(POSITIVE_VALUE, MARK_PUBLIC_KEY);
+        Transaction negativeOutput = new Transaction();
+        negativeOutput.addInput(TX_A_HASH, TX_A_INDEX);
+        negativeOutput.addOutput(POSITIVE_VALUE, MARK_PUBLIC_KEY);
+        negativeOutput.addOutput(NEGATIVE_VALUE, JOHN_PUBLIC_KEY);
+
+        BitSet result = TxValidator.passesStatelessRules(
+                TransactionBatch.of(Arrays.asList(valid, doubleSpend, negativeOutput)));
+
+        assertTrue(result.get(0));
+        assertFalse(result.get(1));
+        assertFalse(result.get(2));
+    }
+
+    @Test
+    public void shouldDetectDoubleSpendInBatchWithManyInputs() {
+        for (int i = 0; i < 10; i++) {
+            tx.addInput(TX_B_HASH, i);
+        }
+        tx.addInput(TX_B_HASH, 0);
+
+        BitSet result = TxValidator.noDoubleSpend(TransactionBatch.of(Arrays.asList(tx)));
+
+        assertFalse(result.get(0));
+    }
+
+    @Test
+    public void shouldCheckSumOfInputsInBatch() {
+        utxoPool.addUTXO(UTXO_A, JOHN_OUTPUT);
+        Transaction overspend = new Transaction();
+        overspend.addInput(TX_A_HASH, TX_A_INDEX);
+        overspend.addOutput(POSITIVE_VALUE + 1, MARK_PUBLIC_KEY);
+        Transaction missingInput = new Transaction();
+        missingInput.addInput(TX_B_HASH, TX_B_INDEX);
+        missingInput.addOutput(ZERO_VALUE, MARK_PUBLIC_KEY);
+        tx.addInput(TX_A_HASH, TX_A_INDEX);
+        tx.addOutput(POSITIVE_VALUE, MARK_PUBLIC_KEY);
+
+        BitSet result = TxValidator.sumInputsGeOutputs(
+                TransactionBatch.of(Arrays.asList(tx, overspend, missingInput)), utxoPool);
+
+        assertEquals(1, result.cardinality());
+        assertTrue(result.get(0));
+    }
+
 }
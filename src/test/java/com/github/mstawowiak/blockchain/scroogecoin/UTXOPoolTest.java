@@ -0,0 +1,76 @@
+package com.github.mstawowiak.blockchain.scroogecoin;
+
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link UTXOPool}
+ */
+public class UTXOPoolTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final UTXO UTXO_A = UTXO.of(TX_A_HASH, 0);
+    private static final UTXO UTXO_B = UTXO.of(TX_A_HASH, 1);
+
+    private static final double VALUE = 10;
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final PublicKey JOHN_PUBLIC_KEY = JOHN_KEY_PAIR.getPublic();
+
+    private UTXOPool utxoPool;
+
+    @Before
+    public void beforeTest() {
+        utxoPool = new UTXOPool();
+    }
+
+    @Test
+    public void shouldStoreDetachedCopyOfOutput() {
+        Transaction tx = new Transaction();
+        tx.addOutput(VALUE, JOHN_PUBLIC_KEY);
+
+        utxoPool.addUTXO(UTXO_A, tx.getOutput(0));
+
+        Transaction.Output stored = utxoPool.getTxOutput(UTXO_A);
+        assertNotSame(tx.getOutput(0), stored);
+        assertTrue(stored.isDetached());
+        assertEquals(VALUE, stored.value, 0);
+        assertSame(JOHN_PUBLIC_KEY, stored.address);
+    }
+
+    @Test
+    public void shouldInternEqualAddresses() throws Exception {
+        PublicKey sameKey = KeyFactory.getInstance(RSA.RSA)
+                .generatePublic(new X509EncodedKeySpec(JOHN_PUBLIC_KEY.getEncoded()));
+
+        utxoPool.addUTXO(UTXO_A, new Transaction().new Output(VALUE, JOHN_PUBLIC_KEY));
+        utxoPool.addUTXO(UTXO_B, new Transaction().new Output(VALUE, sameKey));
+
+        assertSame(utxoPool.getTxOutput(UTXO_A).address, utxoPool.getTxOutput(UTXO_B).address);
+    }
+
+    @Test
+    public void shouldShareAddressesWithCopies() throws Exception {
+        PublicKey sameKey = KeyFactory.getInstance(RSA.RSA)
+                .generatePublic(new X509EncodedKeySpec(JOHN_PUBLIC_KEY.getEncoded()));
+        utxoPool.addUTXO(UTXO_A, new Transaction().new Output(VALUE, JOHN_PUBLIC_KEY));
+
+        UTXOPool copy = new UTXOPool(utxoPool);
+        copy.addUTXO(UTXO_B, new Transaction().new Output(VALUE, sameKey));
+
+        assertSame(utxoPool.getTxOutput(UTXO_A), copy.getTxOutput(UTXO_A));
+        assertSame(JOHN_PUBLIC_KEY, copy.getTxOutput(UTXO_B).address);
+    }
+
+}
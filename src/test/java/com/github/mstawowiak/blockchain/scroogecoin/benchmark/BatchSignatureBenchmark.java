@@ -0,0 +1,92 @@
+package com.github.mstawowiak.blockchain.scroogecoin.benchmark;
+
+import com.github.mstawowiak.blockchain.scroogecoin.BatchSignatureVerifier;
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.TxValidator;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXOPool;
+import com.github.mstawowiak.blockchain.scroogecoin.workload.Workload;
+import com.github.mstawowiak.blockchain.scroogecoin.workload.WorkloadGenerator;
+import com.github.mstawowiak.blockchain.scroogecoin.workload.WorkloadSpec;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compares signature verification of one epoch input by input, as
+ * {@link TxValidator#allInputsSignaturesAreValid(Transaction, UTXOPool)} does, with the key grouped
+ * {@link BatchSignatureVerifier}, over workloads whose outputs are owned by keys picked with
+ * increasing Zipf skew. Run as a plain program, optionally with the measurement time per case in
+ * milliseconds as the only argument.
+ *
+ * <p>Per input verification runs both on one thread and on a parallel stream, so the gain of key
+ * grouping can be told apart from the gain of running on all cores.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public final class BatchSignatureBenchmark {
+
+    private static final long DEFAULT_MEASURE_MILLIS = 3000;
+    private static final double[] SKEWS = {0, 1, 2};
+
+    private static final int KEY_COUNT = 200;
+    private static final int TX_PER_EPOCH = 2000;
+    private static final int INPUTS_PER_TX = 2;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        long measureMillis = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_MEASURE_MILLIS;
+        long measureNanos = TimeUnit.MILLISECONDS.toNanos(measureMillis);
+
+        System.out.printf("%6s %10s %16s %16s %16s%n", "skew", "hot share", "per input sig/s",
+                "parallel sig/s", "batch sig/s");
+        for (double skew : SKEWS) {
+            Workload workload = WorkloadGenerator.generate(WorkloadSpec.builder()
+                    .seed(1)
+                    .keyCount(KEY_COUNT)
+                    .poolSize(TX_PER_EPOCH * INPUTS_PER_TX * 2)
+                    .txPerEpoch(TX_PER_EPOCH)
+                    .inputsPerTx(INPUTS_PER_TX)
+                    .addressSkew(skew)
+                    .build());
+            UTXOPool utxoPool = workload.createUTXOPool();
+            List<Transaction> epoch = workload.getEpochs().get(0);
+            int signatures = epoch.size() * INPUTS_PER_TX;
+
+            Predicate<Transaction> perInput = tx -> TxValidator.allInputsSignaturesAreValid(tx, utxoPool);
+            double sequential = measure(measureNanos, signatures,
+                () -> sink = (int) epoch.stream().filter(perInput).count());
+            double parallel = measure(measureNanos, signatures,
+                () -> sink = (int) epoch.parallelStream().filter(perInput).count());
+            double batch = measure(measureNanos, signatures,
+                () -> sink = BatchSignatureVerifier.verify(epoch, utxoPool).cardinality());
+
+            System.out.printf("%6.1f %9.0f%% %16.0f %16.0f %16.0f%n", skew, 100 * hotShare(workload),
+                    sequential, parallel, batch);
+        }
+    }
+
+    /** @return signatures verified per second */
+    private static double measure(long measureNanos, int signatures, Runnable epoch) {
+        epoch.run();
+        long start = System.nanoTime();
+        long epochs = 0;
+        long elapsed;
+        do {
+            epoch.run();
+            epochs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < measureNanos);
+        return epochs * signatures * 1e9 / elapsed;
+    }
+
+    /** @return fraction of the initial pool owned by the most popular key */
+    private static double hotShare(Workload workload) {
+        long hot = workload.getInitialPool().values().stream()
+                .filter(output -> output.address.equals(workload.getAddresses().get(0)))
+                .count();
+        return (double) hot / workload.getInitialPool().size();
+    }
+
+    private BatchSignatureBenchmark() {
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.mstawowiak.blockchain.scroogecoin.benchmark;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.SignatureScheme;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.SignatureSchemes;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sign and verify throughput of the signature schemes and the size of a two input, two
+ * output transaction signed with each. Run as a plain program, optionally with the measurement
+ * time per operation in milliseconds as the only argument.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public final class SignatureSchemeBenchmark {
+
+    private static final long DEFAULT_MEASURE_MILLIS = 2000;
+    private static final int WARMUP_OPERATIONS = 200;
+
+    private static final byte[] MESSAGE = HashCalculcator.calculateSHA256("BENCHMARK");
+    private static final byte[] PREV_TX_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK");
+
+    private static volatile boolean sink;
+
+    public static void main(String[] args) {
+        long measureMillis = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_MEASURE_MILLIS;
+        long measureNanos = TimeUnit.MILLISECONDS.toNanos(measureMillis);
+        List<SignatureScheme> schemes = Arrays.asList(SignatureSchemes.RSA, SignatureSchemes.ECDSA_P256);
+
+        System.out.printf("%-16s %12s %12s %10s %10s%n", "scheme", "sign/s", "verify/s", "sig bytes", "tx bytes");
+        for (SignatureScheme scheme : schemes) {
+            KeyPair keyPair = scheme.generateKeyPair();
+            byte[] signature = scheme.sign(keyPair.getPrivate(), MESSAGE);
+
+            double signRate = measure(measureNanos,
+                    () -> sink = scheme.sign(keyPair.getPrivate(), MESSAGE).length > 0);
+            double verifyRate = measure(measureNanos,
+                    () -> sink = scheme.verify(keyPair.getPublic(), MESSAGE, signature));
+
+            System.out.printf("%-16s %12.0f %12.0f %10d %10d%n", scheme.getName(), signRate, verifyRate,
+                    signature.length, signedTransaction(scheme, keyPair).getRawTx().length);
+        }
+    }
+
+    /** @return operations per second */
+    private static double measure(long measureNanos, Runnable operation) {
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        long operations = 0;
+        long elapsed;
+        do {
+            operation.run();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < measureNanos);
+        return operations * 1e9 / elapsed;
+    }
+
+    private static Transaction signedTransaction(SignatureScheme scheme, KeyPair keyPair) {
+        Transaction tx = new Transaction();
+        tx.addInput(PREV_TX_HASH, 0);
+        tx.addInput(PREV_TX_HASH, 1);
+        tx.addOutput(1, keyPair.getPublic());
+        tx.addOutput(2, keyPair.getPublic());
+        for (int i = 0; i < tx.numInputs(); i++) {
+            tx.addSignature(scheme.sign(keyPair.getPrivate(), tx.getRawDataToSign(i)), i);
+        }
+        tx.calculateHash();
+        return tx;
+    }
+
+    private SignatureSchemeBenchmark() {
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link AddressRegistry}
+ */
+public class AddressRegistryTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final KeyPair MARK_KEY_PAIR = ECDSA.generateP256();
+
+    private static final int GC_ATTEMPTS = 20;
+
+    @Test
+    public void shouldDecodeToCanonicalKey() throws GeneralSecurityException {
+        PublicKey johnKey = JOHN_KEY_PAIR.getPublic();
+        assertSame(johnKey, AddressRegistry.intern(johnKey));
+
+        //when
+        PublicKey decoded = AddressRegistry.decode("RSA", johnKey.getEncoded());
+
+        assertSame(johnKey, decoded);
+    }
+
+    @Test
+    public void shouldDecodeKeyInUseOnce() throws GeneralSecurityException {
+        byte[] encoded = ECDSA.generateP256().getPublic().getEncoded();
+
+        PublicKey decoded = AddressRegistry.decode("EC", encoded);
+
+        assertSame(decoded, AddressRegistry.decode("EC", encoded.clone()));
+        assertArrayEquals(encoded, decoded.getEncoded());
+    }
+
+    @Test
+    public void shouldEncodeCanonicalKeyOnce() {
+        PublicKey canonical = AddressRegistry.intern(ECDSA.generateP256().getPublic());
+
+        //when
+        byte[] encoded = AddressRegistry.encodingOf(canonical);
+
+        assertSame(encoded, AddressRegistry.encodingOf(canonical));
+        assertArrayEquals(canonical.getEncoded(), encoded);
+    }
+
+    @Test
+    public void shouldNotInternKeysOfSerializedTransactions() throws GeneralSecurityException {
+        PublicKey freshKey = ECDSA.generateP256().getPublic();
+        Transaction tx = new Transaction();
+        tx.addInput(TX_A_HASH, 0);
+        tx.addOutput(1, freshKey);
+
+        //when
+        tx.getRawTx();
+        tx.getRawDataToSign(0);
+
+        assertNotSame(freshKey, AddressRegistry.decode("EC", freshKey.getEncoded()));
+    }
+
+    @Test
+    public void shouldReleaseKeysNoLongerInUse() {
+        WeakReference<PublicKey> released = internUnreferencedKey();
+
+        for (int attempt = 0; attempt < GC_ATTEMPTS && released.get() != null; attempt++) {
+            System.gc();
+        }
+
+        assertNull(released.get());
+    }
+
+    @Test
+    public void shouldSerializeTransactionAddresses() {
+        Transaction tx = new Transaction();
+        tx.addInput(TX_A_HASH, 1);
+        tx.addOutput(4, JOHN_KEY_PAIR.getPublic());
+        tx.addOutput(6, MARK_KEY_PAIR.getPublic());
+        tx.addSignature(new byte[] {7, 8, 9}, 0);
+
+        ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        signed.write(TX_A_HASH, 0, TX_A_HASH.length);
+        signed.write(ByteBuffer.allocate(Integer.BYTES).putInt(1).array(), 0, Integer.BYTES);
+        ByteArrayOutputStream outputs = new ByteArrayOutputStream();
+        writeOutput(outputs, 4, JOHN_KEY_PAIR.getPublic());
+        writeOutput(outputs, 6, MARK_KEY_PAIR.getPublic());
+
+        byte[] expectedDataToSign = concat(signed.toByteArray(), outputs.toByteArray());
+        byte[] expectedRawTx = concat(signed.toByteArray(), new byte[] {7, 8, 9}, outputs.toByteArray());
+        assertArrayEquals(expectedDataToSign, tx.getRawDataToSign(0));
+        assertArrayEquals(expectedRawTx, tx.getRawTx());
+    }
+
+    private static WeakReference<PublicKey> internUnreferencedKey() {
+        return new WeakReference<>(AddressRegistry.intern(ECDSA.generateP256().getPublic()));
+    }
+
+    private static void writeOutput(ByteArrayOutputStream target, double value, PublicKey address) {
+        target.write(ByteBuffer.allocate(Double.BYTES).putDouble(value).array(), 0, Double.BYTES);
+        byte[] encoded = address.getEncoded();
+        target.write(encoded, 0, encoded.length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            target.write(part, 0, part.length);
+        }
+        return target.toByteArray();
+    }
+
+}
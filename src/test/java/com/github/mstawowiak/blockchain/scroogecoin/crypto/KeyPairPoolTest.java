@@ -0,0 +1,81 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link KeyPairPool}
+ */
+public class KeyPairPoolTest {
+
+    private static final int KEY_SIZE = 512;
+    private static final int CAPACITY = 4;
+    private static final int REFILL_THRESHOLD = 1;
+    private static final int THREADS = 2;
+    private static final long WAIT_MILLIS = 10_000;
+
+    private KeyPairPool keyPairPool;
+
+    @Before
+    public void beforeTest() {
+        keyPairPool = new KeyPairPool(KEY_SIZE, CAPACITY, REFILL_THRESHOLD, THREADS);
+    }
+
+    @After
+    public void afterTest() {
+        keyPairPool.close();
+    }
+
+    @Test
+    public void shouldFillPoolInBackground() throws InterruptedException {
+        awaitDepth(CAPACITY);
+
+        KeyPair keyPair = keyPairPool.take();
+
+        assertNotNull(keyPair);
+        assertEquals(KEY_SIZE, ((RSAPublicKey) keyPair.getPublic()).getModulus().bitLength());
+        assertEquals(1, keyPairPool.getServedCount());
+        assertEquals(0, keyPairPool.getMissCount());
+    }
+
+    @Test
+    public void shouldRefillAfterDroppingToThreshold() throws InterruptedException {
+        awaitDepth(CAPACITY);
+
+        for (int i = 0; i < CAPACITY - REFILL_THRESHOLD; i++) {
+            keyPairPool.take();
+        }
+        awaitDepth(CAPACITY);
+
+        assertTrue(keyPairPool.getGeneratedCount() >= CAPACITY * 2 - REFILL_THRESHOLD);
+        assertTrue(keyPairPool.getGenerationRate() > 0);
+    }
+
+    @Test
+    public void shouldGenerateOnCallerThreadWhenEmpty() {
+        keyPairPool.close();
+
+        // generators may still finish the keys they were working on when closed
+        for (int i = 0; i < CAPACITY + THREADS + 1; i++) {
+            assertNotNull(keyPairPool.take());
+        }
+
+        assertTrue(keyPairPool.getMissCount() > 0);
+    }
+
+    private void awaitDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (keyPairPool.getDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, keyPairPool.getDepth());
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link MerkleTree}
+ */
+public class MerkleTreeTest {
+
+    private static final int MAX_SMALL_SIZE = 9;
+
+    @Test
+    public void shouldProveEveryLeafOfSmallTrees() {
+        for (int size = 1; size <= MAX_SMALL_SIZE; size++) {
+            List<byte[]> hashes = hashes(size);
+            MerkleTree tree = MerkleTree.of(hashes);
+
+            for (int i = 0; i < size; i++) {
+                assertTrue(tree.prove(i, hashes.get(i)).verify(tree.getRoot()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectProofOfOtherLeaf() {
+        List<byte[]> hashes = hashes(MAX_SMALL_SIZE);
+        MerkleTree tree = MerkleTree.of(hashes);
+
+        InclusionProof proof = tree.prove(2, hashes.get(3));
+
+        assertFalse(proof.verify(tree.getRoot()));
+    }
+
+    @Test
+    public void shouldBuildSameRootInParallel() {
+        List<byte[]> hashes = hashes(MerkleTree.PARALLEL_THRESHOLD * 3 + 1);
+        MerkleTree tree = MerkleTree.of(hashes);
+
+        byte[] expected = sequentialRoot(hashes);
+
+        assertArrayEquals(expected, tree.getRoot());
+        assertTrue(tree.prove(hashes.size() - 1, hashes.get(hashes.size() - 1)).verify(expected));
+    }
+
+    @Test
+    public void shouldChangeRootWithOrder() {
+        List<byte[]> hashes = hashes(2);
+        List<byte[]> swapped = Arrays.asList(hashes.get(1), hashes.get(0));
+
+        assertFalse(Arrays.equals(MerkleTree.of(hashes).getRoot(), MerkleTree.of(swapped).getRoot()));
+    }
+
+    private static byte[] sequentialRoot(List<byte[]> hashes) {
+        List<byte[]> level = new ArrayList<>();
+        for (byte[] hash : hashes) {
+            level.add(HashCalculcator.calculateSHA256(new byte[]{0}, hash));
+        }
+        while (level.size() > 1) {
+            List<byte[]> parents = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += 2) {
+                parents.add(i + 1 < level.size()
+                        ? HashCalculcator.calculateSHA256(new byte[]{1}, level.get(i), level.get(i + 1))
+                        : level.get(i));
+            }
+            level = parents;
+        }
+        return level.get(0);
+    }
+
+    private static List<byte[]> hashes(int count) {
+        List<byte[]> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hashes.add(HashCalculcator.calculateSHA256("TX_" + i));
+        }
+        return hashes;
+    }
+
+}
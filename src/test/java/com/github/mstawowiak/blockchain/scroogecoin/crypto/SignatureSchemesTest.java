@@ -0,0 +1,87 @@
+package com.github.mstawowiak.blockchain.scroogecoin.crypto;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.TxHandler;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXOPool;
+import java.security.KeyPair;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SignatureSchemes}
+ */
+public class SignatureSchemesTest {
+
+    private static final byte[] MESSAGE = HashCalculcator.calculateSHA256("MESSAGE");
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final double VALUE = 10;
+
+    private static final KeyPair JOHN_KEY_PAIR = RSA.generateRSA(512);
+    private static final KeyPair MARK_KEY_PAIR = ECDSA.generateP256();
+
+    @Test
+    public void shouldSelectSchemeByKeyAlgorithm() {
+        assertSame(SignatureSchemes.RSA, SignatureSchemes.forKey(JOHN_KEY_PAIR.getPublic()));
+        assertSame(SignatureSchemes.ECDSA_P256, SignatureSchemes.forKey(MARK_KEY_PAIR.getPublic()));
+    }
+
+    @Test
+    public void shouldSignAndVerifyWithEcdsa() {
+        byte[] signature = Crypto.sign(MARK_KEY_PAIR.getPrivate(), MESSAGE);
+
+        assertTrue(Crypto.verifySignature(MARK_KEY_PAIR.getPublic(), MESSAGE, signature));
+        assertFalse(Crypto.verifySignature(MARK_KEY_PAIR.getPublic(), TX_A_HASH, signature));
+        assertFalse(Crypto.verifySignature(JOHN_KEY_PAIR.getPublic(), MESSAGE, signature));
+    }
+
+    @Test
+    public void shouldRejectMissingAndMalformedSignatures() {
+        byte[] garbage = {0, 1, 2};
+
+        for (KeyPair keyPair : Arrays.asList(JOHN_KEY_PAIR, MARK_KEY_PAIR)) {
+            SignatureVerifier verifier = SignatureSchemes.forKey(keyPair.getPublic()).newVerifier(keyPair.getPublic());
+
+            assertFalse(Crypto.verifySignature(keyPair.getPublic(), MESSAGE, null));
+            assertFalse(Crypto.verifySignature(keyPair.getPublic(), MESSAGE, garbage));
+            assertFalse(verifier.verify(MESSAGE, null));
+            assertFalse(verifier.verify(MESSAGE, garbage));
+            assertTrue(verifier.verify(MESSAGE, Crypto.sign(keyPair.getPrivate(), MESSAGE)));
+        }
+    }
+
+    @Test
+    public void shouldAcceptTransactionsOfBothSchemesInOneEpoch() {
+        UTXOPool utxoPool = new UTXOPool();
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), Transaction.detachedOutput(VALUE, JOHN_KEY_PAIR.getPublic()));
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 1), Transaction.detachedOutput(VALUE, MARK_KEY_PAIR.getPublic()));
+
+        Transaction fromJohn = spending(0, JOHN_KEY_PAIR, MARK_KEY_PAIR);
+        Transaction fromMark = spending(1, MARK_KEY_PAIR, JOHN_KEY_PAIR);
+
+        assertEquals(2, new TxHandler(utxoPool).handleTxs(Arrays.asList(fromJohn, fromMark)).size());
+    }
+
+    @Test
+    public void shouldFillKeyPairPoolWithSchemeKeys() {
+        try (KeyPairPool keyPairPool = new KeyPairPool(SignatureSchemes.ECDSA_P256, 2, 0, 1)) {
+            assertEquals(ECDSA.EC, keyPairPool.take().getPublic().getAlgorithm());
+            assertEquals(EcdsaSignatureScheme.KEY_SIZE, keyPairPool.getKeySize());
+        }
+    }
+
+    private static Transaction spending(int index, KeyPair owner, KeyPair recipient) {
+        Transaction tx = new Transaction();
+        tx.addInput(TX_A_HASH, index);
+        tx.addOutput(VALUE, recipient.getPublic());
+        tx.addSignature(Crypto.sign(owner.getPrivate(), tx.getRawDataToSign(0)), 0);
+        tx.calculateHash();
+        return tx;
+    }
+
+}
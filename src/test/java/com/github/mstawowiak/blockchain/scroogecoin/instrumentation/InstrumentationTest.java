@@ -0,0 +1,100 @@
+package com.github.mstawowiak.blockchain.scroogecoin.instrumentation;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.TxHandler;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXOPool;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link Instrumentation}
+ */
+public class InstrumentationTest {
+
+    private static final byte[] TX_A_HASH = HashCalculcator.calculateSHA256("GENESIS_BLOCK_A");
+    private static final int UTXO_COUNT = 100;
+
+    @Before
+    public void beforeTest() {
+        Instrumentation.disable(Probe.values());
+        Instrumentation.reset();
+    }
+
+    @After
+    public void afterTest() {
+        Instrumentation.disable(Probe.values());
+        Instrumentation.reset();
+    }
+
+    @Test
+    public void shouldRecordNothingWhenDisabled() {
+        long start = Instrumentation.start(Probe.EPOCH);
+
+        new TxHandler(new UTXOPool()).handleTxs(Collections.singletonList(spendingMissingOutput()));
+
+        assertEquals(Instrumentation.NOT_STARTED, start);
+        assertEquals(0, Instrumentation.getTimer(Instrumentation.EPOCH_TIMER).getCount());
+        assertTrue(Instrumentation.getCounters().values().stream().allMatch(count -> count == 0));
+    }
+
+    @Test
+    public void shouldRecordEpochAndRules() {
+        Instrumentation.enable(Probe.EPOCH, Probe.VALIDATION_RULE);
+
+        new TxHandler(new UTXOPool()).handleTxs(Collections.singletonList(spendingMissingOutput()));
+
+        assertEquals(1, Instrumentation.getTimer(Instrumentation.EPOCH_TIMER).getCount());
+        assertEquals(1, Instrumentation.getCount(Instrumentation.EPOCH_PROPOSED));
+        assertEquals(1, Instrumentation.getCount(Instrumentation.EPOCH_REJECTED));
+        assertEquals(1, Instrumentation.getTimer(
+                Instrumentation.RULE_TIMER_PREFIX + "allOutputsExistsInPool").getCount());
+    }
+
+    @Test
+    public void shouldRecordPoolProbesAndResizes() {
+        Instrumentation.enable(Probe.UTXO_POOL);
+        UTXOPool utxoPool = new UTXOPool();
+
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            utxoPool.addUTXO(UTXO.of(TX_A_HASH, i), Transaction.detachedOutput(1, null));
+        }
+        utxoPool.contains(UTXO.of(TX_A_HASH, 0));
+        utxoPool.contains(UTXO.of(TX_A_HASH, UTXO_COUNT));
+        utxoPool.removeUTXOs(Collections.singletonList(UTXO.of(TX_A_HASH, 0)));
+
+        assertEquals(1, Instrumentation.getCount(Instrumentation.POOL_HITS));
+        assertEquals(1, Instrumentation.getCount(Instrumentation.POOL_MISSES));
+        // 16 buckets grow to 32, 64, 128 and 256 on the way to 100 entries
+        assertEquals(4, Instrumentation.getCount(Instrumentation.POOL_RESIZES));
+        assertEquals(UTXO_COUNT - 1, Instrumentation.getLastPoolSize());
+    }
+
+    @Test
+    public void shouldRecordPoolSizeOnSingleMutations() {
+        Instrumentation.enable(Probe.UTXO_POOL);
+        UTXOPool utxoPool = new UTXOPool();
+
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 0), Transaction.detachedOutput(1, null));
+        utxoPool.addUTXO(UTXO.of(TX_A_HASH, 1), Transaction.detachedOutput(1, null));
+        assertEquals(2, Instrumentation.getLastPoolSize());
+
+        //when
+        utxoPool.removeUTXO(UTXO.of(TX_A_HASH, 0));
+
+        assertEquals(1, Instrumentation.getLastPoolSize());
+    }
+
+    private static Transaction spendingMissingOutput() {
+        Transaction tx = new Transaction();
+        tx.addInput(TX_A_HASH, 0);
+        return tx;
+    }
+
+}
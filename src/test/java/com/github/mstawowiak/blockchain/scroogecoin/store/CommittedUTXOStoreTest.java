@@ -0,0 +1,95 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXOPool;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.MerkleProof;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link CommittedUTXOStore}
+ */
+public class CommittedUTXOStoreTest {
+
+    private static final int UTXO_COUNT = 200;
+
+    private static final Transaction.Output OUTPUT = new Transaction().new Output(10, null);
+    private static final Transaction.Output OTHER_OUTPUT = new Transaction().new Output(20, null);
+
+    private CommittedUTXOStore store;
+
+    @Before
+    public void beforeTest() {
+        store = new CommittedUTXOStore(new HashMapUTXOStore());
+    }
+
+    @Test
+    public void shouldCommitToContentRegardlessOfOrder() {
+        CommittedUTXOStore reversed = new CommittedUTXOStore(new HashMapUTXOStore());
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            store.put(utxo(i), OUTPUT);
+            reversed.put(utxo(UTXO_COUNT - 1 - i), OUTPUT);
+        }
+
+        assertArrayEquals(store.getRoot(), reversed.getRoot());
+    }
+
+    @Test
+    public void shouldRestoreRootAfterRemovingAddedUTXOs() {
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            store.put(utxo(i), OUTPUT);
+        }
+        byte[] root = store.getRoot();
+
+        for (int i = UTXO_COUNT; i < UTXO_COUNT * 2; i++) {
+            store.put(utxo(i), OUTPUT);
+        }
+        assertFalse(Arrays.equals(root, store.getRoot()));
+        for (int i = UTXO_COUNT; i < UTXO_COUNT * 2; i++) {
+            store.remove(utxo(i));
+        }
+
+        assertArrayEquals(root, store.getRoot());
+    }
+
+    @Test
+    public void shouldProveMembership() {
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            store.put(utxo(i), OUTPUT);
+        }
+        byte[] root = store.getRoot();
+
+        MerkleProof proof = store.prove(utxo(7));
+
+        assertTrue(CommittedUTXOStore.verify(root, utxo(7), OUTPUT, proof));
+        assertFalse(CommittedUTXOStore.verify(root, utxo(7), OTHER_OUTPUT, proof));
+        assertFalse(CommittedUTXOStore.verify(root, utxo(8), OUTPUT, proof));
+        assertNull(store.prove(utxo(UTXO_COUNT)));
+    }
+
+    @Test
+    public void shouldKeepCommitmentOfCopiedPool() {
+        UTXOPool utxoPool = new UTXOPool(store);
+        utxoPool.addUTXO(utxo(1), OUTPUT);
+        byte[] root = store.getRoot();
+
+        UTXOPool copy = new UTXOPool(utxoPool);
+        copy.addUTXO(utxo(2), OUTPUT);
+
+        assertArrayEquals(root, store.getRoot());
+        assertFalse(Arrays.equals(root, copy.getStore().unwrap(CommittedUTXOStore.class).getRoot()));
+    }
+
+    private static UTXO utxo(int index) {
+        return UTXO.of(HashCalculcator.calculateSHA256("TX_" + index), index % 3);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXOPool;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link FilteredUTXOStore}
+ */
+public class FilteredUTXOStoreTest {
+
+    private static final int EXPECTED_SIZE = 1000;
+    private static final double MAX_FALSE_POSITIVE_RATE = 0.05;
+
+    private static final Transaction.Output OUTPUT = new Transaction().new Output(10, null);
+
+    private FilteredUTXOStore store;
+
+    @Before
+    public void beforeTest() {
+        store = new FilteredUTXOStore(new HashMapUTXOStore(), EXPECTED_SIZE);
+    }
+
+    @Test
+    public void shouldFindStoredUTXOs() {
+        for (int i = 0; i < EXPECTED_SIZE; i++) {
+            store.put(utxo("STORED", i), OUTPUT);
+        }
+
+        for (int i = 0; i < EXPECTED_SIZE; i++) {
+            assertTrue(store.contains(utxo("STORED", i)));
+            assertSame(OUTPUT, store.get(utxo("STORED", i)));
+        }
+        assertEquals(0, store.getFilteredOut());
+    }
+
+    @Test
+    public void shouldRejectMostMissesWithoutStoreLookup() {
+        for (int i = 0; i < EXPECTED_SIZE; i++) {
+            store.put(utxo("STORED", i), OUTPUT);
+        }
+
+        for (int i = 0; i < EXPECTED_SIZE; i++) {
+            assertFalse(store.contains(utxo("MISSING", i)));
+        }
+
+        assertEquals(EXPECTED_SIZE, store.getProbes());
+        assertTrue(store.getFalsePositiveRate() < MAX_FALSE_POSITIVE_RATE);
+    }
+
+    @Test
+    public void shouldForgetRemovedUTXO() {
+        UTXO utxo = utxo("STORED", 0);
+        store.put(utxo, OUTPUT);
+
+        store.remove(utxo);
+
+        assertNull(store.get(utxo));
+        assertEquals(1, store.getFilteredOut());
+    }
+
+    @Test
+    public void shouldNotLoseUTXOAfterRemovingAbsentOne() {
+        UTXO stored = utxo("STORED", 0);
+        store.put(stored, OUTPUT);
+
+        store.remove(utxo("MISSING", 0));
+        store.put(stored, OUTPUT);
+        store.remove(stored);
+        store.put(stored, OUTPUT);
+
+        assertTrue(store.contains(stored));
+    }
+
+    @Test
+    public void shouldBeReachableThroughPool() {
+        UTXOPool utxoPool = new UTXOPool(new FilteredUTXOStore(new ShardedUTXOStore(), EXPECTED_SIZE));
+
+        assertSame(utxoPool.getStore(), utxoPool.getStore().unwrap(FilteredUTXOStore.class));
+        assertTrue(utxoPool.getStore().unwrap(ShardedUTXOStore.class) != null);
+        utxoPool.getStore().close();
+    }
+
+    private static UTXO utxo(String prefix, int index) {
+        return UTXO.of(HashCalculcator.calculateSHA256(prefix + index), index);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ShardedUTXOStore}
+ */
+public class ShardedUTXOStoreTest {
+
+    private static final int SHARD_COUNT = 4;
+    private static final int UTXO_COUNT = 200;
+    private static final int COPY_COUNT = 10;
+
+    private static final Transaction.Output OUTPUT = new Transaction().new Output(10, null);
+
+    private ShardedUTXOStore store;
+    private Map<UTXO, Transaction.Output> entries;
+
+    @Before
+    public void beforeTest() {
+        store = new ShardedUTXOStore(SHARD_COUNT, UTXO_COUNT);
+        entries = new HashMap<>();
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            entries.put(UTXO.of(HashCalculcator.calculateSHA256("TX_" + i), 0), OUTPUT);
+        }
+    }
+
+    @After
+    public void afterTest() {
+        store.close();
+    }
+
+    @Test
+    public void shouldStoreAndRemoveSingleUTXO() {
+        UTXO utxo = entries.keySet().iterator().next();
+
+        store.put(utxo, OUTPUT);
+
+        assertTrue(store.contains(utxo));
+        assertSame(OUTPUT, store.get(utxo));
+
+        store.remove(utxo);
+
+        assertFalse(store.contains(utxo));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void shouldSpreadBulkInsertOverShards() {
+        store.putAll(entries);
+
+        assertEquals(UTXO_COUNT, store.size());
+        for (int shardSize : store.getShardSizes()) {
+            assertTrue(shardSize > 0);
+        }
+    }
+
+    @Test
+    public void shouldRemoveInBulk() {
+        store.putAll(entries);
+        List<UTXO> toRemove = new ArrayList<>(entries.keySet()).subList(0, UTXO_COUNT / 2);
+
+        store.removeAll(toRemove);
+
+        assertEquals(UTXO_COUNT - toRemove.size(), store.size());
+        for (UTXO utxo : toRemove) {
+            assertFalse(store.contains(utxo));
+        }
+    }
+
+    @Test
+    public void shouldKeepAllUTXOsAfterRebalance() {
+        store.putAll(entries);
+
+        store.rebalance(SHARD_COUNT * 2);
+
+        assertEquals(SHARD_COUNT * 2, store.getShardCount());
+        assertEquals(UTXO_COUNT, store.size());
+        for (UTXO utxo : entries.keySet()) {
+            assertTrue(store.contains(utxo));
+        }
+    }
+
+    @Test
+    public void shouldCopyIndependently() {
+        store.putAll(entries);
+        UTXOStore copy = store.copy();
+
+        store.removeAll(entries.keySet());
+
+        assertEquals(0, store.size());
+        assertEquals(UTXO_COUNT, copy.size());
+        copy.close();
+    }
+
+    @Test
+    public void shouldShareShardThreadsWithCopies() {
+        store.putAll(entries);
+
+        //when
+        for (int i = 0; i < COPY_COUNT; i++) {
+            store.copy().putAll(entries);
+        }
+
+        // at most one thread per shard index, the largest layout of this class having been rebalanced
+        long shardThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("utxo-shard-"))
+                .count();
+        assertTrue(shardThreads <= 2 * SHARD_COUNT);
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.github.mstawowiak.blockchain.scroogecoin.store;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.UTXO;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.HashCalculcator;
+import com.github.mstawowiak.blockchain.scroogecoin.crypto.RSA;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TieredUTXOStore}
+ */
+public class TieredUTXOStoreTest {
+
+    private static final int HOT_CAPACITY = 10;
+    private static final int UTXO_COUNT = 50;
+    private static final double DELTA = 0.0;
+
+    private static final PublicKey JOHN_PUBLIC_KEY = RSA.generateRSA2048().getPublic();
+    /** Key whose algorithm is unknown, so outputs paying to it can not be written back */
+    private static final PublicKey BROKEN_KEY = new PublicKey() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String getAlgorithm() {
+            return null;
+        }
+
+        @Override
+        public String getFormat() {
+            return null;
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return new byte[0];
+        }
+    };
+
+    private TieredUTXOStore store;
+
+    @Before
+    public void beforeTest() {
+        store = TieredUTXOStore.createTemporary(HOT_CAPACITY);
+    }
+
+    @After
+    public void afterTest() {
+        store.close();
+    }
+
+    @Test
+    public void shouldReadEvictedUTXOsBackFromColdTier() {
+        fillStore();
+        store.flush();
+
+        assertEquals(UTXO_COUNT, store.size());
+        assertEquals(UTXO_COUNT - HOT_CAPACITY, store.getWriteBacks());
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            Transaction.Output output = store.get(utxo(i));
+            assertEquals(i, output.value, DELTA);
+            assertEquals(JOHN_PUBLIC_KEY, output.address);
+        }
+        assertTrue(store.getColdReads() > 0);
+        assertTrue(store.getHotSize() <= HOT_CAPACITY);
+    }
+
+    @Test
+    public void shouldServeEvictedUTXOBeforeWriteBackCompletes() {
+        fillStore();
+
+        assertEquals(0, store.get(utxo(0)).value, DELTA);
+    }
+
+    @Test
+    public void shouldRemoveFromAllTiers() {
+        fillStore();
+        store.flush();
+
+        store.remove(utxo(0));
+        store.remove(utxo(UTXO_COUNT - 1));
+
+        assertFalse(store.contains(utxo(0)));
+        assertNull(store.get(utxo(UTXO_COUNT - 1)));
+        assertEquals(UTXO_COUNT - 2, store.size());
+        assertTrue(store.getGarbageBytes() > 0);
+    }
+
+    @Test
+    public void shouldPrefetchColdUTXOsIntoHotTier() {
+        fillStore();
+        store.flush();
+        List<UTXO> epochInputs = new ArrayList<>();
+        for (int i = 0; i < HOT_CAPACITY; i++) {
+            epochInputs.add(utxo(i));
+        }
+
+        store.prefetch(epochInputs);
+        long coldReads = store.getColdReads();
+        for (UTXO utxo : epochInputs) {
+            store.get(utxo);
+        }
+
+        assertEquals(coldReads, store.getColdReads());
+    }
+
+    @Test
+    public void shouldKeepLiveRecordsAfterCompaction() {
+        fillStore();
+        store.flush();
+        for (int i = 0; i < UTXO_COUNT / 2; i++) {
+            store.remove(utxo(i));
+        }
+
+        store.compact();
+
+        assertEquals(0, store.getGarbageBytes());
+        for (int i = UTXO_COUNT / 2; i < UTXO_COUNT; i++) {
+            assertEquals(i, store.get(utxo(i)).value, DELTA);
+        }
+    }
+
+    @Test
+    public void shouldShareColdTierWithCopies() {
+        fillStore();
+        store.flush();
+
+        //when
+        TieredUTXOStore copy = (TieredUTXOStore) store.copy();
+        copy.remove(utxo(0));
+        for (int i = UTXO_COUNT; i < 2 * UTXO_COUNT; i++) {
+            copy.put(utxo(i), new Transaction().new Output(i, JOHN_PUBLIC_KEY));
+        }
+        copy.flush();
+
+        assertEquals(0, copy.getHotHits() + copy.getColdReads());
+        assertEquals(2 * UTXO_COUNT - 1, copy.size());
+        assertEquals(1, copy.get(utxo(1)).value, DELTA);
+        assertEquals(2 * UTXO_COUNT - 1, copy.get(utxo(2 * UTXO_COUNT - 1)).value, DELTA);
+        assertTrue(copy.getColdReads() > 0);
+        assertEquals(UTXO_COUNT, store.size());
+        assertEquals(0, store.get(utxo(0)).value, DELTA);
+        assertFalse(store.contains(utxo(UTXO_COUNT)));
+
+        copy.compact();
+        copy.close();
+        assertEquals(UTXO_COUNT - 1, store.get(utxo(UTXO_COUNT - 1)).value, DELTA);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldReportFailedWriteBackOnFlush() {
+        store.put(UTXO.of(HashCalculcator.calculateSHA256("BROKEN"), 0), new Transaction().new Output(1, BROKEN_KEY));
+        fillStore();
+
+        //when
+        store.flush();
+    }
+
+    private void fillStore() {
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            store.put(utxo(i), new Transaction().new Output(i, JOHN_PUBLIC_KEY));
+        }
+    }
+
+    private static UTXO utxo(int index) {
+        return UTXO.of(HashCalculcator.calculateSHA256("TX_" + index), index);
+    }
+
+}
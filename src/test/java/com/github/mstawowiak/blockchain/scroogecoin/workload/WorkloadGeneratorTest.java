@@ -0,0 +1,170 @@
+package com.github.mstawowiak.blockchain.scroogecoin.workload;
+
+import com.github.mstawowiak.blockchain.scroogecoin.Transaction;
+import com.github.mstawowiak.blockchain.scroogecoin.TxHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link WorkloadGenerator}
+ */
+public class WorkloadGeneratorTest {
+
+    private static final int TX_PER_EPOCH = 40;
+
+    private static final WorkloadSpec VALID_SPEC = WorkloadSpec.builder()
+            .seed(42)
+            .keyCount(3)
+            .keySize(512)
+            .poolSize(100)
+            .epochCount(2)
+            .txPerEpoch(TX_PER_EPOCH)
+            .inputsPerTx(2)
+            .outputsPerTx(2)
+            .chainDepth(3)
+            .build();
+
+    private static final WorkloadSpec MIXED_SPEC = WorkloadSpec.builder()
+            .seed(7)
+            .keyCount(3)
+            .keySize(512)
+            .poolSize(30)
+            .epochCount(2)
+            .txPerEpoch(TX_PER_EPOCH)
+            .chainDepth(2)
+            .invalidFraction(0.2)
+            .doubleSpendFraction(0.1)
+            .outOfOrderFraction(0.5)
+            .build();
+
+    @Test
+    public void shouldGenerateOnlyAcceptedTransactionsForValidSpec() {
+        Workload workload = WorkloadGenerator.generate(VALID_SPEC);
+        TxHandler txHandler = new TxHandler(workload.createUTXOPool());
+
+        for (List<Transaction> epoch : workload.getEpochs()) {
+            assertEquals(TX_PER_EPOCH, epoch.size());
+            assertEquals(epoch.size(), txHandler.handleTxs(epoch).size());
+        }
+    }
+
+    @Test
+    public void shouldGenerateRejectedTransactionsForMixedSpec() {
+        Workload workload = WorkloadGenerator.generate(MIXED_SPEC);
+        TxHandler txHandler = new TxHandler(workload.createUTXOPool());
+
+        int accepted = 0;
+        for (List<Transaction> epoch : workload.getEpochs()) {
+            accepted += txHandler.handleTxs(epoch).size();
+        }
+
+        assertTrue(accepted > 0);
+        assertTrue(accepted < workload.getTxCount());
+    }
+
+    @Test
+    public void shouldConcentrateOutputsOnHotKeysForSkewedSpec() {
+        WorkloadSpec skewedSpec = WorkloadSpec.builder()
+                .seed(42)
+                .keyCount(10)
+                .keySize(512)
+                .poolSize(200)
+                .epochCount(0)
+                .addressSkew(2)
+                .build();
+
+        Workload workload = WorkloadGenerator.generate(skewedSpec);
+
+        PublicKey hottest = workload.getAddresses().get(0);
+        long hotOutputs = workload.getInitialPool().values().stream()
+                .filter(output -> output.address.equals(hottest))
+                .count();
+        assertTrue(hotOutputs > workload.getInitialPool().size() / 2);
+    }
+
+    @Test
+    public void shouldPayInvalidTransactionsToSeveralKeys() {
+        WorkloadSpec invalidSpec = WorkloadSpec.builder()
+                .seed(42)
+                .keyCount(3)
+                .keySize(512)
+                .poolSize(30)
+                .epochCount(1)
+                .txPerEpoch(TX_PER_EPOCH)
+                .outputsPerTx(2)
+                .invalidFraction(1)
+                .build();
+
+        Workload workload = WorkloadGenerator.generate(invalidSpec);
+
+        long payees = workload.getEpochs().get(0).stream()
+                .flatMap(tx -> tx.getOutputs().stream())
+                .map(output -> output.address)
+                .distinct()
+                .count();
+        assertTrue(payees > 1);
+    }
+
+    @Test
+    public void shouldBeReproducible() {
+        Workload first = WorkloadGenerator.generate(MIXED_SPEC);
+        Workload second = WorkloadGenerator.generate(MIXED_SPEC);
+
+        assertSameTransactions(first, second);
+    }
+
+    @Test
+    public void shouldReadWorkloadWrittenToFile() throws Exception {
+        Path file = Files.createTempFile("workload-", ".bin");
+        try {
+            Workload generated = WorkloadGenerator.generate(MIXED_SPEC);
+            WorkloadFile.write(generated, MIXED_SPEC, file);
+
+            Workload read = WorkloadGenerator.loadOrGenerate(MIXED_SPEC, file);
+
+            assertSameTransactions(generated, read);
+            assertEquals(generated.getInitialPool().keySet(), read.getInitialPool().keySet());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldRegenerateWorkloadOfOtherSpec() throws Exception {
+        Path file = Files.createTempFile("workload-", ".bin");
+        try {
+            WorkloadFile.write(WorkloadGenerator.generate(VALID_SPEC), VALID_SPEC, file);
+
+            //when
+            Workload read = WorkloadGenerator.loadOrGenerate(MIXED_SPEC, file);
+
+            assertSameTransactions(WorkloadGenerator.generate(MIXED_SPEC), read);
+            assertTrue(WorkloadFile.isGeneratedFrom(file, MIXED_SPEC));
+            assertFalse(WorkloadFile.isGeneratedFrom(file, VALID_SPEC));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertSameTransactions(Workload expected, Workload actual) {
+        assertEquals(expected.getEpochs().size(), actual.getEpochs().size());
+        for (int i = 0; i < expected.getEpochs().size(); i++) {
+            List<Transaction> expectedEpoch = expected.getEpochs().get(i);
+            List<Transaction> actualEpoch = actual.getEpochs().get(i);
+            assertEquals(expectedEpoch.size(), actualEpoch.size());
+            for (int j = 0; j < expectedEpoch.size(); j++) {
+                assertArrayEquals(expectedEpoch.get(j).getHash(), actualEpoch.get(j).getHash());
+                assertArrayEquals(expectedEpoch.get(j).getRawTx(), actualEpoch.get(j).getRawTx());
+            }
+        }
+    }
+
+}